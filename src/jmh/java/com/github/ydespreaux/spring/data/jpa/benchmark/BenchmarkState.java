@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.benchmark;
+
+import com.github.ydespreaux.spring.data.jpa.configuration.JpaConfiguration;
+import com.github.ydespreaux.spring.data.jpa.configuration.entities.Author;
+import com.github.ydespreaux.spring.data.jpa.configuration.entities.Book;
+import com.github.ydespreaux.spring.data.jpa.configuration.entities.Editor;
+import com.github.ydespreaux.spring.data.jpa.configuration.repository.BookRepository;
+import com.github.ydespreaux.spring.data.jpa.query.Criteria;
+import com.github.ydespreaux.spring.data.jpa.repository.support.JpaCriteriaSettings;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Spring context of the benchmarks, on an embedded H2 database filled with generated books, authors and editors.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@State(Scope.Benchmark)
+public class BenchmarkState {
+
+    private static final int AUTHORS = 1000;
+    private static final int EDITORS = 20;
+    private static final int FLUSH_SIZE = 500;
+
+    /**
+     * Number of generated books
+     */
+    @Param({"10000"})
+    public int books;
+    /**
+     * Size of the compiled query cache, 0 to compile every query
+     */
+    @Param({"256"})
+    public int queryCacheSize;
+    /**
+     * Number of disjunctions of the large criteria
+     */
+    @Param({"100"})
+    public int largeCriteriaSize;
+
+    ConfigurableApplicationContext context;
+    BookRepository bookRepository;
+    EntityManager entityManager;
+
+    Criteria smallCriteria;
+    Criteria largeCriteria;
+    Criteria deepCriteria;
+    Criteria inCriteria;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JpaCriteriaSettings settings = new JpaCriteriaSettings().queryCacheSize(this.queryCacheSize);
+        this.context = new SpringApplicationBuilder(JpaConfiguration.class)
+                .initializers(context -> context.getBeanFactory().registerSingleton("jpaCriteriaSettings", settings))
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false");
+        this.bookRepository = this.context.getBean(BookRepository.class);
+        EntityManagerFactory entityManagerFactory = this.context.getBean(EntityManagerFactory.class);
+        this.generate(entityManagerFactory);
+        this.entityManager = entityManagerFactory.createEntityManager();
+        this.smallCriteria = smallCriteria();
+        this.largeCriteria = largeCriteria(this.largeCriteriaSize);
+        this.deepCriteria = deepCriteria();
+        this.inCriteria = new Criteria("id").in(LongStream.rangeClosed(1, 1000).boxed().toArray());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.entityManager.close();
+        this.context.close();
+    }
+
+    /**
+     * @return a criteria of three entries on the properties of the book
+     */
+    static Criteria smallCriteria() {
+        return new Criteria("genre").eq(Book.Genre.THRILLER)
+                .and("price").between(10, 30)
+                .and("title").startsWith("Book 1");
+    }
+
+    /**
+     * @param size number of disjunctions
+     * @return a disjunction of conjunctions
+     */
+    static Criteria largeCriteria(int size) {
+        Criteria criteria = new Criteria("title").eq("Book 0");
+        for (int i = 0; i < size; i++) {
+            criteria = criteria.or(new Criteria("genre").eq(Book.Genre.values()[i % Book.Genre.values().length])
+                    .and("price").between(5 + i % 50, 6 + i % 50)
+                    .and("publication").greaterThanEqual(LocalDate.of(2000, 1, 1).plusDays(i)));
+        }
+        return criteria;
+    }
+
+    /**
+     * @return a criteria on the properties of nested associations
+     */
+    static Criteria deepCriteria() {
+        return new Criteria("author.books.editor.label").eq("Editor 1")
+                .and("author.lastName").startsWith("Last 1")
+                .and("editor.label").notEq("Editor 2");
+    }
+
+    private void generate(EntityManagerFactory entityManagerFactory) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<Editor> editors = new ArrayList<>(EDITORS);
+            for (int i = 0; i < EDITORS; i++) {
+                Editor editor = new Editor();
+                editor.setLabel("Editor " + i);
+                em.persist(editor);
+                editors.add(editor);
+            }
+            List<Author> authors = new ArrayList<>(AUTHORS);
+            for (int i = 0; i < AUTHORS; i++) {
+                Author author = new Author();
+                author.setFirstName("First " + i);
+                author.setLastName("Last " + i);
+                em.persist(author);
+                authors.add(author);
+            }
+            for (int i = 0; i < this.books; i++) {
+                em.persist(Book.builder()
+                        .title("Book " + i)
+                        .description("Description of the book " + i)
+                        .genre(Book.Genre.values()[i % Book.Genre.values().length])
+                        .price(5 + (i % 500) / 10d)
+                        .publication(LocalDate.of(2000, 1, 1).plusDays(i % 7000))
+                        .author(authors.get(i % AUTHORS))
+                        .editor(editors.get(i % EDITORS))
+                        .build());
+                if (i % FLUSH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+}
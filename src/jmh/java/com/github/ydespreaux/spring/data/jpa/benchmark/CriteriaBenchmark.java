@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.benchmark;
+
+import com.github.ydespreaux.spring.data.jpa.configuration.entities.Book;
+import com.github.ydespreaux.spring.data.jpa.query.Criteria;
+import com.github.ydespreaux.spring.data.jpa.query.CriteriaShape;
+import com.github.ydespreaux.spring.data.jpa.query.SpecificationCriteria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of the criteria and their translation into JPA predicates, without database access.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CriteriaBenchmark {
+
+    @Benchmark
+    public Criteria buildSmallCriteria() {
+        return BenchmarkState.smallCriteria();
+    }
+
+    @Benchmark
+    public Criteria buildLargeCriteria(BenchmarkState state) {
+        return BenchmarkState.largeCriteria(state.largeCriteriaSize);
+    }
+
+    @Benchmark
+    public CriteriaShape shapeOfLargeCriteria(BenchmarkState state) {
+        return CriteriaShape.of(state.largeCriteria);
+    }
+
+    @Benchmark
+    public Predicate toPredicateSmallCriteria(BenchmarkState state) {
+        return toPredicate(state, state.smallCriteria);
+    }
+
+    @Benchmark
+    public Predicate toPredicateLargeCriteria(BenchmarkState state) {
+        return toPredicate(state, state.largeCriteria);
+    }
+
+    @Benchmark
+    public Predicate toPredicateDeepCriteria(BenchmarkState state) {
+        return toPredicate(state, state.deepCriteria);
+    }
+
+    @Benchmark
+    public Predicate toPredicateInCriteria(BenchmarkState state) {
+        return toPredicate(state, state.inCriteria);
+    }
+
+    private static Predicate toPredicate(BenchmarkState state, Criteria criteria) {
+        CriteriaBuilder builder = state.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = builder.createQuery(Book.class);
+        Root<Book> root = query.from(Book.class);
+        return new SpecificationCriteria<Book>(criteria, true).toPredicate(root, query, builder);
+    }
+}
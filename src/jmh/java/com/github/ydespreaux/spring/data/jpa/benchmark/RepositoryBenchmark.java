@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.benchmark;
+
+import com.github.ydespreaux.spring.data.jpa.configuration.entities.Book;
+import com.github.ydespreaux.spring.data.jpa.query.QueryOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Criteria queries executed by the repository: translation, compilation (see {@link BenchmarkState#queryCacheSize}),
+ * execution on H2 and hydration of the entities.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RepositoryBenchmark {
+
+    private static final QueryOptions FETCH_ASSOCIATIONS = new QueryOptions().withAssociation("author", "editor");
+
+    @Benchmark
+    public List<Book> findAllSmallCriteria(BenchmarkState state) {
+        return state.bookRepository.findAll(state.smallCriteria, Sort.by("title"));
+    }
+
+    @Benchmark
+    public List<Book> findAllLargeCriteria(BenchmarkState state) {
+        return state.bookRepository.findAll(state.largeCriteria, Sort.by("title"));
+    }
+
+    @Benchmark
+    public List<Book> findAllDeepCriteria(BenchmarkState state) {
+        return state.bookRepository.findAll(state.deepCriteria, Sort.by("title"));
+    }
+
+    @Benchmark
+    public List<Book> findAllInCriteria(BenchmarkState state) {
+        return state.bookRepository.findAll(state.inCriteria, Sort.by("title"));
+    }
+
+    @Benchmark
+    public Page<Book> findPageSmallCriteria(BenchmarkState state) {
+        return state.bookRepository.findAll(state.smallCriteria, PageRequest.of(1, 20, Sort.by("title")));
+    }
+
+    @Benchmark
+    public Page<Book> findPageFetchAssociations(BenchmarkState state) {
+        return state.bookRepository.findAll(state.smallCriteria, PageRequest.of(1, 20, Sort.by("title")), FETCH_ASSOCIATIONS);
+    }
+
+    @Benchmark
+    public long countSmallCriteria(BenchmarkState state) {
+        return state.bookRepository.count(state.smallCriteria);
+    }
+
+    @Benchmark
+    public long countLargeCriteria(BenchmarkState state) {
+        return state.bookRepository.count(state.largeCriteria);
+    }
+
+    @Benchmark
+    public long countDeepCriteria(BenchmarkState state) {
+        return state.bookRepository.count(state.deepCriteria);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.query;
+
+import lombok.Getter;
+
+/**
+ * Options of the bulk update and delete statements.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public class BulkOptions {
+
+    public static final BulkOptions DEFAULT = new BulkOptions();
+    /**
+     * Increment the version of the updated rows, so that concurrent optimistic transactions fail.
+     */
+    @Getter
+    private boolean versionIncrement = false;
+    /**
+     * Detach the managed entities of the domain class after the statement, so that they are reloaded with the new state.
+     */
+    @Getter
+    private boolean evict = true;
+
+    public BulkOptions versionIncrement(boolean versionIncrement) {
+        this.versionIncrement = versionIncrement;
+        return this;
+    }
+
+    public BulkOptions evict(boolean evict) {
+        this.evict = evict;
+        return this;
+    }
+}
@@ -30,6 +30,10 @@ import java.util.*;
 /**
  * Criteria eq the central class when constructing jpa queries. It follows more or less a fluent API style, which allows to
  * easily chain together multiple criteria.
+ * <p>
+ * A criteria is immutable: each method of the fluent API returns a new criteria, so a criteria can be shared between
+ * threads and used as a cache key (structural equals / hashCode, with a precomputed hash). The returned criteria must be
+ * used: {@code criteria.eq(value);} without assignment leaves {@code criteria} unchanged.
  *
  * @author Yoann Despréaux
  * @since 1.0.0
@@ -40,15 +44,17 @@ public class Criteria {
     private static final String AND_OPERATOR = "AND";
 
 
-    private Field field;
-    private String conjunctionOperator;
-    private List<Criteria> criteriaChained = new ArrayList<>(1);
-    private List<CriteriaEntry> queryCriteria = new ArrayList<>(1);
+    private final Field field;
+    private final String conjunctionOperator;
+    private final List<Criteria> criteriaChained;
+    private final List<CriteriaEntry> queryCriteria;
+    private final int hash;
 
     /**
      *
      */
     public Criteria() {
+        this(null, null, Collections.emptyList(), Collections.emptyList());
     }
 
     /**
@@ -70,6 +76,9 @@ public class Criteria {
         Assert.hasText(field.getName(), "Field.name for criteria must not be null/empty");
         this.field = field;
         this.conjunctionOperator = AND_OPERATOR;
+        this.criteriaChained = Collections.emptyList();
+        this.queryCriteria = Collections.emptyList();
+        this.hash = computeHash();
     }
 
     /**
@@ -81,15 +90,43 @@ public class Criteria {
         Assert.hasText(field.getName(), "Field.name for criteria must not be null/empty");
         this.field = field;
         this.conjunctionOperator = conjunction;
-        this.criteriaChained.addAll(criteriaChained);
-        this.queryCriteria.addAll(queryCriteria);
+        this.criteriaChained = Collections.unmodifiableList(new ArrayList<>(criteriaChained));
+        this.queryCriteria = Collections.unmodifiableList(new ArrayList<>(queryCriteria));
+        this.hash = computeHash();
+    }
+
+    private Criteria(Field field, String conjunction, List<Criteria> criteriaChained, List<CriteriaEntry> queryCriteria) {
+        this.field = field;
+        this.conjunctionOperator = conjunction;
+        this.criteriaChained = criteriaChained.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(criteriaChained));
+        this.queryCriteria = queryCriteria.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(queryCriteria));
+        this.hash = computeHash();
+    }
+
+    private int computeHash() {
+        int result = Objects.hashCode(this.conjunctionOperator);
+        result = 31 * result + this.criteriaChained.hashCode();
+        return 31 * result + this.queryCriteria.hashCode();
+    }
+
+    /**
+     * Creates a conjunction or a disjunction of criteria and entries, without field.
+     *
+     * @param and             true for a conjunction, false for a disjunction
+     * @param criteriaChained the chained criteria
+     * @param queryCriteria   the entries
+     * @return
+     * @since 1.2.1
+     */
+    static Criteria of(boolean and, List<Criteria> criteriaChained, List<CriteriaEntry> queryCriteria) {
+        return new Criteria(null, and ? AND_OPERATOR : OR_OPERATOR, criteriaChained, queryCriteria);
     }
 
     /**
      * Chain using {@code AND}
      *
      * @param field
-     * @return
+     * @return a new criteria
      */
     public Criteria and(Field field) {
         if (this.isAnd()) {
@@ -103,7 +140,7 @@ public class Criteria {
      * Chain using {@code AND}
      *
      * @param fieldName
-     * @return
+     * @return a new criteria
      */
     public Criteria and(String fieldName) {
         return and(new Field(fieldName));
@@ -113,18 +150,17 @@ public class Criteria {
      * Chain using {@code AND}
      *
      * @param criteria
-     * @return
+     * @return a new criteria
      */
     public Criteria and(Criteria criteria) {
-        this.criteriaChained.add(criteria);
-        return this;
+        return and(Collections.singletonList(criteria));
     }
 
     /**
      * Chain using {@code AND}
      *
      * @param criterias
-     * @return
+     * @return a new criteria
      */
     public Criteria and(Criteria... criterias) {
         return and(Arrays.asList(criterias));
@@ -134,18 +170,19 @@ public class Criteria {
      * Chain using {@code AND}
      *
      * @param criterias
-     * @return
+     * @return a new criteria
      */
     public Criteria and(List<Criteria> criterias) {
-        this.criteriaChained.addAll(criterias);
-        return this;
+        List<Criteria> chained = new ArrayList<>(this.criteriaChained);
+        chained.addAll(criterias);
+        return new Criteria(this.field, this.conjunctionOperator, chained, this.queryCriteria);
     }
 
     /**
      * Chain using {@code OR}
      *
      * @param field
-     * @return
+     * @return a new criteria
      */
     public Criteria or(Field field) {
         Assert.notNull(field, "Cannot chain 'null' field.");
@@ -156,7 +193,7 @@ public class Criteria {
      * Chain using {@code OR}
      *
      * @param criteria
-     * @return
+     * @return a new criteria
      */
     public Criteria or(Criteria criteria) {
         Assert.notNull(criteria, "Cannot chain 'null' criteria.");
@@ -167,7 +204,7 @@ public class Criteria {
      * Chain using {@code OR}
      *
      * @param fieldName
-     * @return
+     * @return a new criteria
      */
     public Criteria or(String fieldName) {
         return or(new Field(fieldName));
@@ -177,78 +214,71 @@ public class Criteria {
      * Crates new CriteriaEntry with equals
      *
      * @param value
-     * @return
+     * @return a new criteria
      */
     public Criteria eq(Object value) {
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.EQUALS, value));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.EQUALS, value));
     }
 
     /**
      * Crates new CriteriaEntry with not equals
      *
      * @param value
-     * @return
+     * @return a new criteria
      */
     public Criteria notEq(Object value) {
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.NOT_EQUALS, value));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.NOT_EQUALS, value));
     }
 
     /**
      * Crates new CriteriaEntry with null
      *
-     * @return
+     * @return a new criteria
      */
     public Criteria isNull() {
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.NULL, null));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.NULL, null));
     }
 
     /**
      * Crates new CriteriaEntry with not null
      *
-     * @return
+     * @return a new criteria
      */
     public Criteria isNotNull() {
-        this.addQueryCriteria(new CriteriaEntry(this.field, OperationKey.NOT_NULL, null));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.NOT_NULL, null));
     }
 
     /**
      * Crates new CriteriaEntry with contains
      *
      * @param search
-     * @return
+     * @return a new criteria
      */
     public Criteria contains(String search) {
         assertNoBlankQuery(search);
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.CONTAINS, search));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.CONTAINS, search));
     }
 
     /**
      * Creates new CriteriaEntry for startsWith
      *
      * @param search
-     * @return
+     * @return a new criteria
      */
     public Criteria startsWith(String search) {
         assertNoBlankQuery(search);
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.STARTS_WITH, search));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.STARTS_WITH, search));
     }
 
     /**
      * Creates new CriteriaEntry for endsWith
      *
      * @param search
-     * @return
+     * @return a new criteria
      */
     public Criteria endsWith(String search) {
         assertNoBlankQuery(search);
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.ENDS_WITH, search));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.ENDS_WITH, search));
     }
 
     /**
@@ -256,77 +286,72 @@ public class Criteria {
      *
      * @param lowerBound
      * @param upperBound
-     * @return
+     * @return a new criteria
      */
     public Criteria between(Comparable<?> lowerBound, Comparable<?> upperBound) {
         if (lowerBound == null && upperBound == null) {
             throw new InvalidDataAccessApiUsageException("Range [* TO *] eq not allowed");
         }
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.BETWEEN, new Comparable<?>[]{lowerBound, upperBound}));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.BETWEEN, new Comparable<?>[]{lowerBound, upperBound}));
     }
 
     /**
      * Creates new CriteriaEntry for {@code <= upperBound}
      *
      * @param upperBound
-     * @return
+     * @return a new criteria
      */
     public Criteria lessThanEqual(Comparable<?> upperBound) {
         if (upperBound == null) {
             throw new InvalidDataAccessApiUsageException("UpperBound can't be null");
         }
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.LESS_EQUAL, upperBound));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.LESS_EQUAL, upperBound));
     }
 
     /**
      * Creates new CriteriaEntry for {@code < upperBound}
      *
      * @param upperBound
-     * @return
+     * @return a new criteria
      */
     public Criteria lessThan(Comparable<?> upperBound) {
         if (upperBound == null) {
             throw new InvalidDataAccessApiUsageException("UpperBound can't be null");
         }
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.LESS, upperBound));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.LESS, upperBound));
     }
 
     /**
      * Creates new CriteriaEntry for {@code >= lowerBound}
      *
      * @param lowerBound
-     * @return
+     * @return a new criteria
      */
     public Criteria greaterThanEqual(Comparable<?> lowerBound) {
         if (lowerBound == null) {
             throw new InvalidDataAccessApiUsageException("LowerBound can't be null");
         }
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.GREATER_EQUAL, lowerBound));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.GREATER_EQUAL, lowerBound));
     }
 
     /**
      * Creates new CriteriaEntry for {@code > lowerBound}
      *
      * @param lowerBound
-     * @return
+     * @return a new criteria
      */
     public Criteria greaterThan(Comparable<?> lowerBound) {
         if (lowerBound == null) {
             throw new InvalidDataAccessApiUsageException("LowerBound can't be null");
         }
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.GREATER, lowerBound));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.GREATER, lowerBound));
     }
 
     /**
      * Creates new CriteriaEntry for multiple values {@code (arg0 arg1 arg2 ...)}
      *
      * @param values
-     * @return
+     * @return a new criteria
      */
     public Criteria in(Object... values) {
         return in(toCollection(values));
@@ -336,12 +361,11 @@ public class Criteria {
      * Creates new CriteriaEntry for multiple values {@code (arg0 arg1 arg2 ...)}
      *
      * @param values the collection containing the values to match against
-     * @return
+     * @return a new criteria
      */
     public Criteria in(Iterable<?> values) {
         Assert.notNull(values, "Collection of 'in' values must not be null");
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.IN, values));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.IN, values));
     }
 
     /**
@@ -361,7 +385,7 @@ public class Criteria {
      * Creates new CriteriaEntry for multiple values {@code (arg0 arg1 arg2 ...)}
      *
      * @param values
-     * @return
+     * @return a new criteria
      */
     public Criteria notIn(Object... values) {
         return notIn(toCollection(values));
@@ -371,12 +395,11 @@ public class Criteria {
      * Creates new CriteriaEntry for multiple values {@code (arg0 arg1 arg2 ...)}
      *
      * @param values
-     * @return
+     * @return a new criteria
      */
     public Criteria notIn(Iterable<?> values) {
         Assert.notNull(values, "Collection of 'NotIn' values must not be null");
-        queryCriteria.add(new CriteriaEntry(this.field, OperationKey.NOT_IN, values));
-        return this;
+        return with(new CriteriaEntry(this.field, OperationKey.NOT_IN, values));
     }
 
     /**
@@ -392,14 +415,14 @@ public class Criteria {
      * @return all Criteria chained
      */
     public List<Criteria> getCriteriaChain() {
-        return Collections.unmodifiableList(this.criteriaChained);
+        return this.criteriaChained;
     }
 
     /**
      * @return all criteria query
      */
     public List<CriteriaEntry> getQueryCriteriaEntries() {
-        return Collections.unmodifiableList(this.queryCriteria);
+        return this.queryCriteria;
     }
 
     public boolean isAnd() {
@@ -421,18 +444,28 @@ public class Criteria {
      * Add criteria query
      *
      * @param entry criteria
+     * @return a new criteria with the entry
      */
-    protected void addQueryCriteria(CriteriaEntry entry) {
-        this.queryCriteria.add(entry);
+    protected Criteria with(CriteriaEntry entry) {
+        List<CriteriaEntry> entries = new ArrayList<>(this.queryCriteria);
+        entries.add(entry);
+        return new Criteria(this.field, this.conjunctionOperator, this.criteriaChained, entries);
     }
 
-    /**
-     * Add criterias
-     *
-     * @param entries criteria list
-     */
-    protected void addAllQueryCriteria(Collection<CriteriaEntry> entries) {
-        this.queryCriteria.addAll(entries);
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Criteria)) return false;
+        Criteria criteria = (Criteria) o;
+        return this.hash == criteria.hash
+                && Objects.equals(this.conjunctionOperator, criteria.conjunctionOperator)
+                && this.criteriaChained.equals(criteria.criteriaChained)
+                && this.queryCriteria.equals(criteria.queryCriteria);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
     }
 
     /**
@@ -469,18 +502,50 @@ public class Criteria {
      *
      */
     @Getter
-    public static class CriteriaEntry {
+    public static final class CriteriaEntry {
 
-        private Field field;
-        private OperationKey key;
-        private Object value;
+        private final Field field;
+        private final OperationKey key;
+        private final Object value;
+        private final int hash;
 
         public CriteriaEntry(Field field, OperationKey key, Object value) {
             this.field = field;
             this.key = key;
-            this.value = value;
+            this.value = copyOf(value);
+            this.hash = 31 * (31 * Objects.hashCode(field) + Objects.hashCode(key)) + Arrays.deepHashCode(new Object[]{this.value});
         }
 
+        /**
+         * Copies the mutable values, so that the entry can't be changed once created.
+         */
+        private static Object copyOf(Object value) {
+            if (value instanceof Object[]) {
+                return ((Object[]) value).clone();
+            }
+            if (value instanceof Iterable) {
+                List<Object> values = new ArrayList<>();
+                ((Iterable<?>) value).forEach(values::add);
+                return Collections.unmodifiableList(values);
+            }
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CriteriaEntry)) return false;
+            CriteriaEntry entry = (CriteriaEntry) o;
+            return this.hash == entry.hash
+                    && this.key == entry.key
+                    && Objects.equals(this.field, entry.field)
+                    && Objects.deepEquals(this.value, entry.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
 
         @Override
         public String toString() {
@@ -0,0 +1,539 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.query;
+
+import org.springframework.lang.Nullable;
+
+import java.math.BigDecimal;
+import java.time.temporal.Temporal;
+import java.util.*;
+
+import static com.github.ydespreaux.spring.data.jpa.query.Criteria.CriteriaEntry;
+import static com.github.ydespreaux.spring.data.jpa.query.Criteria.OperationKey;
+
+/**
+ * Normalizes a {@link Criteria} before its translation:
+ * <ul>
+ * <li>nested conjunctions (disjunctions) are flattened and duplicated entries removed,</li>
+ * <li>equalities of a field joined with OR are merged into a single IN,</li>
+ * <li>the ranges, equalities and IN of a field joined with AND are intersected,</li>
+ * <li>contradictions (price &lt; 5 AND price &gt; 10, field IS NULL AND field = 1) make the criteria unsatisfiable.</li>
+ * </ul>
+ * Only numeric and temporal values are intersected: the database compares strings with the collation of the column
+ * and enumerations with their stored form, which the Java comparison does not reproduce. Values that cannot be compared
+ * with each other are left as they are.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public final class CriteriaOptimizer {
+
+    private static final Node TRUE = new Node();
+    private static final Node FALSE = new Node();
+    private static final Set<OperationKey> RANGE_KEYS = EnumSet.of(OperationKey.GREATER, OperationKey.GREATER_EQUAL,
+            OperationKey.LESS, OperationKey.LESS_EQUAL, OperationKey.BETWEEN);
+
+    private CriteriaOptimizer() {
+    }
+
+    /**
+     * @param criteria the criteria
+     * @return the optimized criteria
+     */
+    public static Result optimize(@Nullable Criteria criteria) {
+        if (criteria == null) {
+            return new Result(null, false);
+        }
+        Node node = toNode(criteria);
+        if (node == FALSE) {
+            return new Result(null, true);
+        }
+        return new Result(node == null || node == TRUE ? null : toCriteria(node), false);
+    }
+
+    /**
+     * Result of an optimization
+     */
+    public static final class Result {
+
+        private final Criteria criteria;
+        private final boolean unsatisfiable;
+
+        private Result(@Nullable Criteria criteria, boolean unsatisfiable) {
+            this.criteria = criteria;
+            this.unsatisfiable = unsatisfiable;
+        }
+
+        /**
+         * @param criteria the criteria
+         * @return the result of a criteria left as it is
+         */
+        public static Result of(@Nullable Criteria criteria) {
+            return new Result(criteria, false);
+        }
+
+        /**
+         * @return the optimized criteria, null if the criteria does not restrict the results
+         */
+        @Nullable
+        public Criteria getCriteria() {
+            return this.criteria;
+        }
+
+        /**
+         * @return true if no row can match the criteria
+         */
+        public boolean isUnsatisfiable() {
+            return this.unsatisfiable;
+        }
+    }
+
+    private static class Node {
+    }
+
+    private static final class Leaf extends Node {
+        private final CriteriaEntry entry;
+
+        private Leaf(CriteriaEntry entry) {
+            this.entry = entry;
+        }
+
+        private String getFieldName() {
+            return this.entry.getField().getName();
+        }
+
+        private OperationKey getKey() {
+            return this.entry.getKey();
+        }
+    }
+
+    private static final class Group extends Node {
+        private final boolean and;
+        private final List<Node> children;
+
+        private Group(boolean and, List<Node> children) {
+            this.and = and;
+            this.children = children;
+        }
+    }
+
+    /**
+     * A criteria without entries (e.g. new Criteria()) does not restrict the results: it is dropped from the operands
+     * of its parent, as SpecificationCriteria does, instead of being a TRUE operand that would absorb an OR.
+     *
+     * @param criteria
+     * @return the node, null if the criteria has no entry
+     */
+    @Nullable
+    private static Node toNode(Criteria criteria) {
+        List<Node> children = new ArrayList<>();
+        for (Criteria chainedCriteria : criteria.getCriteriaChain()) {
+            Node child = toNode(chainedCriteria);
+            if (child != null) {
+                children.add(child);
+            }
+        }
+        for (CriteriaEntry entry : criteria.getQueryCriteriaEntries()) {
+            children.add(toNode(entry));
+        }
+        if (children.isEmpty()) {
+            return null;
+        }
+        // a criteria without conjunction operator is translated into a disjunction
+        return simplify(criteria.isAnd() || children.size() == 1, children);
+    }
+
+    private static Node toNode(CriteriaEntry entry) {
+        if (entry.getKey() == OperationKey.IN || entry.getKey() == OperationKey.NOT_IN) {
+            if (!toList(entry.getValue()).iterator().hasNext()) {
+                return entry.getKey() == OperationKey.IN ? FALSE : TRUE;
+            }
+        }
+        return new Leaf(entry);
+    }
+
+    private static Node simplify(boolean and, List<Node> children) {
+        Node neutral = and ? TRUE : FALSE;
+        Node absorbing = and ? FALSE : TRUE;
+        List<Node> operands = new ArrayList<>();
+        for (Node child : children) {
+            if (child == absorbing) {
+                return absorbing;
+            }
+            if (child instanceof Group && ((Group) child).and == and) {
+                ((Group) child).children.forEach(operand -> addDistinct(operands, operand));
+            } else if (child != neutral) {
+                addDistinct(operands, child);
+            }
+        }
+        List<Node> result = and ? intersectFields(operands) : mergeEqualities(operands);
+        if (result == null) {
+            return absorbing;
+        }
+        if (result.isEmpty()) {
+            return neutral;
+        }
+        return result.size() == 1 ? result.get(0) : new Group(and, result);
+    }
+
+    private static void addDistinct(List<Node> operands, Node node) {
+        if (node instanceof Leaf) {
+            for (Node operand : operands) {
+                if (operand instanceof Leaf && ((Leaf) operand).entry.equals(((Leaf) node).entry)) {
+                    return;
+                }
+            }
+        }
+        operands.add(node);
+    }
+
+    /**
+     * Merges the equalities and IN of a field joined with OR into a single IN
+     *
+     * @param operands
+     * @return
+     */
+    private static List<Node> mergeEqualities(List<Node> operands) {
+        Map<String, List<Leaf>> equalities = new LinkedHashMap<>();
+        for (Node operand : operands) {
+            if (operand instanceof Leaf && (((Leaf) operand).getKey() == OperationKey.EQUALS || ((Leaf) operand).getKey() == OperationKey.IN)) {
+                equalities.computeIfAbsent(((Leaf) operand).getFieldName(), name -> new ArrayList<>()).add((Leaf) operand);
+            }
+        }
+        List<Node> result = new ArrayList<>();
+        for (Node operand : operands) {
+            if (!(operand instanceof Leaf) || !equalities.containsKey(((Leaf) operand).getFieldName())) {
+                result.add(operand);
+                continue;
+            }
+            List<Leaf> leaves = equalities.get(((Leaf) operand).getFieldName());
+            if (leaves.size() == 1) {
+                result.add(operand);
+            } else if (leaves.get(0) == operand) {
+                List<Object> values = new ArrayList<>();
+                for (Leaf leaf : leaves) {
+                    for (Object value : leaf.getKey() == OperationKey.IN ? toList(leaf.entry.getValue()) : Collections.singletonList(leaf.entry.getValue())) {
+                        addDistinctValue(values, value);
+                    }
+                }
+                result.add(new Leaf(new CriteriaEntry(((Leaf) operand).entry.getField(), OperationKey.IN, values)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Intersects the ranges, equalities and IN of each field joined with AND.
+     *
+     * @param operands
+     * @return the operands, null if they are contradictory
+     */
+    @Nullable
+    private static List<Node> intersectFields(List<Node> operands) {
+        Map<String, List<Leaf>> fields = new LinkedHashMap<>();
+        for (Node operand : operands) {
+            if (operand instanceof Leaf) {
+                fields.computeIfAbsent(((Leaf) operand).getFieldName(), name -> new ArrayList<>()).add((Leaf) operand);
+            }
+        }
+        Map<String, List<Leaf>> intersections = new HashMap<>();
+        for (Map.Entry<String, List<Leaf>> field : fields.entrySet()) {
+            if (field.getValue().size() > 1) {
+                List<Leaf> intersection;
+                try {
+                    intersection = intersect(field.getValue());
+                } catch (ClassCastException | NumberFormatException e) {
+                    // values that cannot be compared
+                    continue;
+                }
+                if (intersection == null) {
+                    return null;
+                }
+                intersections.put(field.getKey(), intersection);
+            }
+        }
+        List<Node> result = new ArrayList<>();
+        for (Node operand : operands) {
+            if (!(operand instanceof Leaf) || !intersections.containsKey(((Leaf) operand).getFieldName())) {
+                result.add(operand);
+            } else if (fields.get(((Leaf) operand).getFieldName()).get(0) == operand) {
+                result.addAll(intersections.get(((Leaf) operand).getFieldName()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param leaves the entries of a field, joined with AND
+     * @return the intersection of the entries, null if they are contradictory
+     */
+    @Nullable
+    private static List<Leaf> intersect(List<Leaf> leaves) {
+        Field field = leaves.get(0).entry.getField();
+        boolean isNull = leaves.stream().anyMatch(leaf -> leaf.getKey() == OperationKey.NULL);
+        if (isNull) {
+            // any other operator rejects null
+            return leaves.stream().allMatch(leaf -> leaf.getKey() == OperationKey.NULL) ? Collections.singletonList(leaves.get(0)) : null;
+        }
+        if (!isOrdered(leaves)) {
+            return leaves;
+        }
+        Object equal = null;
+        List<Object> in = null;
+        Bound lower = null;
+        Bound upper = null;
+        List<Leaf> others = new ArrayList<>();
+        for (Leaf leaf : leaves) {
+            Object value = leaf.entry.getValue();
+            switch (leaf.getKey()) {
+                case EQUALS:
+                    if (equal != null && !sameValue(equal, value)) {
+                        return null;
+                    }
+                    equal = value;
+                    break;
+                case IN:
+                    List<Object> values = new ArrayList<>();
+                    for (Object element : toList(value)) {
+                        if (in == null || containsValue(in, element)) {
+                            addDistinctValue(values, element);
+                        }
+                    }
+                    in = values;
+                    break;
+                case GREATER:
+                case GREATER_EQUAL:
+                    lower = Bound.max(lower, new Bound(value, leaf.getKey() == OperationKey.GREATER_EQUAL));
+                    break;
+                case LESS:
+                case LESS_EQUAL:
+                    upper = Bound.min(upper, new Bound(value, leaf.getKey() == OperationKey.LESS_EQUAL));
+                    break;
+                case BETWEEN:
+                    Object[] bounds = (Object[]) value;
+                    if (bounds[0] != null) {
+                        lower = Bound.max(lower, new Bound(bounds[0], true));
+                    }
+                    if (bounds[1] != null) {
+                        upper = Bound.min(upper, new Bound(bounds[1], true));
+                    }
+                    break;
+                default:
+                    others.add(leaf);
+            }
+        }
+        if (lower != null && upper != null) {
+            int comparison = compare(lower.value, upper.value);
+            if (comparison > 0 || (comparison == 0 && !(lower.inclusive && upper.inclusive))) {
+                return null;
+            }
+            if (comparison == 0 && equal == null) {
+                equal = lower.value;
+            }
+        }
+        if (equal != null) {
+            if (!(in == null || containsValue(in, equal)) || !inRange(equal, lower, upper)) {
+                return null;
+            }
+            in = null;
+            lower = null;
+            upper = null;
+        }
+        if (in != null) {
+            List<Object> values = new ArrayList<>();
+            for (Object value : in) {
+                if (inRange(value, lower, upper)) {
+                    values.add(value);
+                }
+            }
+            if (values.isEmpty()) {
+                return null;
+            }
+            if (values.size() == 1) {
+                equal = values.get(0);
+                in = null;
+            } else {
+                in = values;
+            }
+            lower = null;
+            upper = null;
+        }
+        List<Leaf> result = new ArrayList<>();
+        if (equal != null) {
+            result.add(new Leaf(new CriteriaEntry(field, OperationKey.EQUALS, equal)));
+        } else if (in != null) {
+            result.add(new Leaf(new CriteriaEntry(field, OperationKey.IN, in)));
+        } else if (lower != null && upper != null && lower.inclusive && upper.inclusive) {
+            result.add(new Leaf(new CriteriaEntry(field, OperationKey.BETWEEN, new Comparable<?>[]{(Comparable<?>) lower.value, (Comparable<?>) upper.value})));
+        } else {
+            if (lower != null) {
+                result.add(new Leaf(new CriteriaEntry(field, lower.inclusive ? OperationKey.GREATER_EQUAL : OperationKey.GREATER, lower.value)));
+            }
+            if (upper != null) {
+                result.add(new Leaf(new CriteriaEntry(field, upper.inclusive ? OperationKey.LESS_EQUAL : OperationKey.LESS, upper.value)));
+            }
+        }
+        boolean restricted = !result.isEmpty();
+        for (Leaf leaf : others) {
+            // IS NOT NULL is implied by an equality or a range
+            if (!(restricted && leaf.getKey() == OperationKey.NOT_NULL)) {
+                result.add(leaf);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param leaves the entries of a field
+     * @return true if the values of the equalities, IN and ranges are numeric or temporal
+     */
+    private static boolean isOrdered(List<Leaf> leaves) {
+        for (Leaf leaf : leaves) {
+            Object value = leaf.entry.getValue();
+            switch (leaf.getKey()) {
+                case EQUALS:
+                case GREATER:
+                case GREATER_EQUAL:
+                case LESS:
+                case LESS_EQUAL:
+                    if (!isOrdered(value)) {
+                        return false;
+                    }
+                    break;
+                case IN:
+                    for (Object element : toList(value)) {
+                        if (!isOrdered(element)) {
+                            return false;
+                        }
+                    }
+                    break;
+                case BETWEEN:
+                    for (Object bound : (Object[]) value) {
+                        if (bound != null && !isOrdered(bound)) {
+                            return false;
+                        }
+                    }
+                    break;
+                default:
+            }
+        }
+        return true;
+    }
+
+    private static boolean isOrdered(@Nullable Object value) {
+        return value instanceof Number || value instanceof Temporal || value instanceof Date;
+    }
+
+    private static boolean inRange(Object value, @Nullable Bound lower, @Nullable Bound upper) {
+        if (lower != null) {
+            int comparison = compare(value, lower.value);
+            if (comparison < 0 || (comparison == 0 && !lower.inclusive)) {
+                return false;
+            }
+        }
+        if (upper != null) {
+            int comparison = compare(value, upper.value);
+            return comparison < 0 || (comparison == 0 && upper.inclusive);
+        }
+        return true;
+    }
+
+    /**
+     * Bound of a range
+     */
+    private static final class Bound {
+        private final Object value;
+        private final boolean inclusive;
+
+        private Bound(Object value, boolean inclusive) {
+            this.value = value;
+            this.inclusive = inclusive;
+        }
+
+        private static Bound max(@Nullable Bound current, Bound bound) {
+            if (current == null) {
+                return bound;
+            }
+            int comparison = compare(bound.value, current.value);
+            return comparison > 0 || (comparison == 0 && !bound.inclusive) ? bound : current;
+        }
+
+        private static Bound min(@Nullable Bound current, Bound bound) {
+            if (current == null) {
+                return bound;
+            }
+            int comparison = compare(bound.value, current.value);
+            return comparison < 0 || (comparison == 0 && !bound.inclusive) ? bound : current;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object value, Object other) {
+        if (value instanceof Number && other instanceof Number) {
+            return new BigDecimal(value.toString()).compareTo(new BigDecimal(other.toString()));
+        }
+        return ((Comparable<Object>) value).compareTo(other);
+    }
+
+    private static boolean sameValue(Object value, Object other) {
+        if (value instanceof Number && other instanceof Number) {
+            try {
+                return compare(value, other) == 0;
+            } catch (NumberFormatException e) {
+                return value.equals(other);
+            }
+        }
+        return Objects.equals(value, other);
+    }
+
+    private static boolean containsValue(List<Object> values, Object value) {
+        return values.stream().anyMatch(element -> sameValue(element, value));
+    }
+
+    private static void addDistinctValue(List<Object> values, Object value) {
+        if (!containsValue(values, value)) {
+            values.add(value);
+        }
+    }
+
+    private static List<Object> toList(Object value) {
+        List<Object> values = new ArrayList<>();
+        ((Iterable<?>) value).forEach(values::add);
+        return values;
+    }
+
+    private static Criteria toCriteria(Node node) {
+        if (node instanceof Leaf) {
+            return Criteria.of(true, Collections.emptyList(), Collections.singletonList(((Leaf) node).entry));
+        }
+        Group group = (Group) node;
+        List<Criteria> criteriaChained = new ArrayList<>();
+        List<CriteriaEntry> entries = new ArrayList<>();
+        for (Node child : group.children) {
+            if (child instanceof Leaf) {
+                entries.add(((Leaf) child).entry);
+            } else {
+                criteriaChained.add(toCriteria(child));
+            }
+        }
+        return Criteria.of(group.and, criteriaChained, entries);
+    }
+}
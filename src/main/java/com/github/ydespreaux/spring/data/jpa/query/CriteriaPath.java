@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.query;
+
+import javax.persistence.metamodel.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Property path of a criteria field, parsed and validated against the metamodel the first time it is seen for a
+ * managed type (see {@link CriteriaPathCache}): chain of attributes, keys of the joins and java type of the last attribute.
+ * The identifier of a many-to-one association (author.id) is read from the foreign key, without joining the association.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+final class CriteriaPath {
+
+    private final String path;
+    private final List<Attribute<?, ?>> attributes;
+    private final boolean foreignKey;
+    private final String[] joinKeys;
+
+    private CriteriaPath(String path, List<Attribute<?, ?>> attributes) {
+        this.path = path;
+        this.attributes = attributes;
+        this.foreignKey = isForeignKey(attributes);
+        this.joinKeys = new String[attributes.size() - (this.foreignKey ? 2 : 1)];
+        int end = -1;
+        for (int i = 0; i < this.joinKeys.length; i++) {
+            end = path.indexOf('.', end + 1);
+            this.joinKeys[i] = path.substring(0, end);
+        }
+    }
+
+    /**
+     * @param rootType the managed type of the root
+     * @param path     the property path, dot separated
+     * @return the parsed path
+     * @throws IllegalArgumentException if a property of the path does not exist
+     */
+    static CriteriaPath parse(ManagedType<?> rootType, String path) {
+        List<Attribute<?, ?>> attributes = new ArrayList<>();
+        ManagedType<?> type = rootType;
+        int start = 0;
+        while (true) {
+            int end = path.indexOf('.', start);
+            String name = end < 0 ? path.substring(start) : path.substring(start, end);
+            Attribute<?, ?> attribute;
+            try {
+                attribute = type.getAttribute(name);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("No property [%s] found on [%s] for the path [%s]", name, type.getJavaType().getName(), path), e);
+            }
+            attributes.add(attribute);
+            if (end < 0) {
+                return new CriteriaPath(path, attributes);
+            }
+            type = managedType(attribute);
+            if (type == null) {
+                throw new IllegalArgumentException(String.format("Property [%s] of the path [%s] is neither an association nor an embedded property", name, path));
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * @param attributes
+     * @return true if the path ends with the single identifier of a many-to-one association
+     */
+    private static boolean isForeignKey(List<Attribute<?, ?>> attributes) {
+        if (attributes.size() < 2) {
+            return false;
+        }
+        Attribute<?, ?> association = attributes.get(attributes.size() - 2);
+        Attribute<?, ?> last = attributes.get(attributes.size() - 1);
+        if (association.getPersistentAttributeType() != Attribute.PersistentAttributeType.MANY_TO_ONE
+                || !(last instanceof SingularAttribute) || !((SingularAttribute<?, ?>) last).isId()) {
+            return false;
+        }
+        Type<?> type = ((SingularAttribute<?, ?>) association).getType();
+        return type instanceof IdentifiableType && ((IdentifiableType<?>) type).hasSingleIdAttribute();
+    }
+
+    /**
+     * @param attribute
+     * @return the managed type of the attribute (element type for a collection), null for a basic attribute
+     */
+    private static ManagedType<?> managedType(Attribute<?, ?> attribute) {
+        Type<?> type = attribute instanceof PluralAttribute
+                ? ((PluralAttribute<?, ?, ?>) attribute).getElementType()
+                : ((SingularAttribute<?, ?>) attribute).getType();
+        return type instanceof ManagedType ? (ManagedType<?>) type : null;
+    }
+
+    /**
+     * @return the property path
+     */
+    String getPath() {
+        return this.path;
+    }
+
+    /**
+     * @return true if the path is the identifier of a many-to-one association, read from the foreign key
+     */
+    boolean isForeignKey() {
+        return this.foreignKey;
+    }
+
+    /**
+     * @return the number of joins, one per attribute except the last one (and the association of a foreign key)
+     */
+    int getJoinCount() {
+        return this.joinKeys.length;
+    }
+
+    /**
+     * @param index index of the join
+     * @return the key of the join: the path up to its attribute
+     */
+    String getJoinKey(int index) {
+        return this.joinKeys[index];
+    }
+
+    /**
+     * @param index index of the attribute
+     * @return the attribute
+     */
+    Attribute<?, ?> getAttribute(int index) {
+        return this.attributes.get(index);
+    }
+
+    /**
+     * @return the last attribute of the path
+     */
+    Attribute<?, ?> getLastAttribute() {
+        return this.attributes.get(this.attributes.size() - 1);
+    }
+
+    /**
+     * @return the java type of the last attribute
+     */
+    Class<?> getJavaType() {
+        return getLastAttribute().getJavaType();
+    }
+
+    @Override
+    public String toString() {
+        return this.path;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+package com.github.ydespreaux.spring.data.jpa.query;
+
+import javax.persistence.metamodel.ManagedType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Property paths parsed against the metamodel, by managed type. The parsed paths reference the attributes of the
+ * metamodel: the cache is held by a repository, so that it is released with the entity manager factory instead of
+ * keeping every metamodel reachable.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public final class CriteriaPathCache {
+
+    private final Map<ManagedType<?>, Map<String, CriteriaPath>> paths = new ConcurrentHashMap<>();
+
+    /**
+     * @param type the managed type of the root
+     * @param path the property path, dot separated
+     * @return the parsed path
+     * @throws IllegalArgumentException if a property of the path does not exist
+     */
+    CriteriaPath get(ManagedType<?> type, String path) {
+        return this.paths.computeIfAbsent(type, key -> new ConcurrentHashMap<>()).computeIfAbsent(path, key -> CriteriaPath.parse(type, key));
+    }
+
+    /**
+     * @return the number of parsed paths
+     */
+    public int size() {
+        return this.paths.values().stream().mapToInt(Map::size).sum();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+
+package com.github.ydespreaux.spring.data.jpa.query;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+
+import static com.github.ydespreaux.spring.data.jpa.query.Criteria.CriteriaEntry;
+
+/**
+ * Structural description of a {@link Criteria}: fields, operators and AND / OR layout, without the values.
+ * Two criteria with the same shape are translated to the same parameterized query.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public final class CriteriaShape {
+
+    private static final CriteriaShape EMPTY = new CriteriaShape("");
+
+    private final String key;
+    private final int hash;
+
+    private CriteriaShape(String key) {
+        this.key = key;
+        this.hash = key.hashCode();
+    }
+
+    /**
+     * @param criteria the criteria
+     * @return the shape of the criteria
+     */
+    public static CriteriaShape of(@Nullable Criteria criteria) {
+        if (criteria == null) {
+            return EMPTY;
+        }
+        StringBuilder builder = new StringBuilder();
+        appendShape(builder, criteria);
+        return new CriteriaShape(builder.toString());
+    }
+
+    /**
+     * @param criteria the criteria of a batch, in order
+     * @return the shape of the batch
+     */
+    public static CriteriaShape ofBatch(List<Criteria> criteria) {
+        StringBuilder builder = new StringBuilder("BATCH(");
+        for (Criteria batchCriteria : criteria) {
+            if (batchCriteria != null) {
+                appendShape(builder, batchCriteria);
+            }
+            builder.append(';');
+        }
+        return new CriteriaShape(builder.append(')').toString());
+    }
+
+    /**
+     * @param builder
+     * @param criteria
+     */
+    private static void appendShape(StringBuilder builder, Criteria criteria) {
+        builder.append(criteria.isAnd() ? "AND(" : "OR(");
+        for (Criteria chainedCriteria : criteria.getCriteriaChain()) {
+            appendShape(builder, chainedCriteria);
+            builder.append(',');
+        }
+        for (CriteriaEntry entry : criteria.getQueryCriteriaEntries()) {
+            appendShape(builder, entry);
+            builder.append(',');
+        }
+        builder.append(')');
+    }
+
+    /**
+     * @param builder
+     * @param entry
+     */
+    private static void appendShape(StringBuilder builder, CriteriaEntry entry) {
+        builder.append(entry.getField().getName()).append(' ').append(entry.getKey());
+        switch (entry.getKey()) {
+            case BETWEEN:
+                Object[] bounds = (Object[]) entry.getValue();
+                builder.append(bounds[0] == null ? "[*," : "[?,").append(bounds[1] == null ? "*]" : "?]");
+                break;
+            case IN:
+            case NOT_IN:
+                builder.append('[').append(sizeBucket(entry.getValue())).append(']');
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @param values
+     * @return the size bucket of the values
+     */
+    private static int sizeBucket(Object values) {
+        int size = 0;
+        if (values instanceof Collection) {
+            size = ((Collection<?>) values).size();
+        } else if (values instanceof Iterable) {
+            for (Object ignored : (Iterable<?>) values) {
+                size++;
+            }
+        }
+        return sizeBucket(size);
+    }
+
+    /**
+     * @param size
+     * @return the smallest power of two greater than or equal to the size
+     */
+    static int sizeBucket(int size) {
+        return size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * @return the key identifying this shape
+     */
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * @return a short identifier of this shape, a low-cardinality tag of the metrics
+     */
+    public String getId() {
+        return String.format("%08x", this.hash);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CriteriaShape)) return false;
+        CriteriaShape that = (CriteriaShape) o;
+        return this.hash == that.hash && this.key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        return this.key;
+    }
+}
@@ -21,8 +21,8 @@
 package com.github.ydespreaux.spring.data.jpa.query;
 
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.ToString;
 
 /**
@@ -30,13 +30,13 @@ import lombok.ToString;
  * @since 1.0.0
  */
 @Getter
-@Setter
 @AllArgsConstructor
+@EqualsAndHashCode
 @ToString
-public class Field {
+public final class Field {
 
     /**
      * Name of the field
      */
-    private String name;
+    private final String name;
 }
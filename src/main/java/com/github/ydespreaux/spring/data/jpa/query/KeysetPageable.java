@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+
+package com.github.ydespreaux.spring.data.jpa.query;
+
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Request of a slice for keyset (seek) pagination: the slice starts after the row identified by the continuation
+ * token returned with the previous slice, instead of skipping an offset.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@Getter
+public final class KeysetPageable {
+
+    /**
+     * Number of elements of the slice
+     */
+    private final int size;
+    /**
+     * Sort of the rows. The identifier of the entity is appended as tiebreaker if it is not part of the sort.
+     */
+    private final Sort sort;
+    /**
+     * Token of the last row of the previous slice, null for the first slice
+     */
+    @Nullable
+    private final String continuationToken;
+
+    private KeysetPageable(int size, Sort sort, @Nullable String continuationToken) {
+        Assert.isTrue(size > 0, "Size must be greater than zero!");
+        Assert.notNull(sort, "Sort must not be null!");
+        this.size = size;
+        this.sort = sort;
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * Creates the request of the first slice
+     *
+     * @param size the number of elements of the slice
+     * @param sort the sort
+     * @return
+     */
+    public static KeysetPageable of(int size, Sort sort) {
+        return new KeysetPageable(size, sort, null);
+    }
+
+    /**
+     * Creates the request of the slice following the given continuation token
+     *
+     * @param continuationToken the token returned with the previous slice
+     * @return
+     */
+    public KeysetPageable after(@Nullable String continuationToken) {
+        return new KeysetPageable(this.size, this.sort, continuationToken);
+    }
+
+    /**
+     * @return true if this is the request of the first slice
+     */
+    public boolean isFirst() {
+        return this.continuationToken == null;
+    }
+}
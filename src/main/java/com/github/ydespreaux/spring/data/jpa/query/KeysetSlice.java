@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+
+package com.github.ydespreaux.spring.data.jpa.query;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * Slice returned by a keyset (seek) pagination query. The next slice is requested with the continuation token.
+ *
+ * @param <T>
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public class KeysetSlice<T> extends SliceImpl<T> {
+
+    private static final long serialVersionUID = 4262347328614935476L;
+
+    private final KeysetPageable keysetPageable;
+    private final String continuationToken;
+
+    /**
+     * @param content           the content of the slice
+     * @param keysetPageable    the request of the slice
+     * @param hasNext           true if there is a next slice
+     * @param continuationToken the token of the last row of the slice
+     */
+    public KeysetSlice(List<T> content, KeysetPageable keysetPageable, boolean hasNext, @Nullable String continuationToken) {
+        super(content, PageRequest.of(0, keysetPageable.getSize(), keysetPageable.getSort()), hasNext);
+        this.keysetPageable = keysetPageable;
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * @return the token of the last row of this slice
+     */
+    @Nullable
+    public String getContinuationToken() {
+        return this.continuationToken;
+    }
+
+    /**
+     * @return the request of the next slice, null if this slice is the last one
+     */
+    @Nullable
+    public KeysetPageable nextKeysetPageable() {
+        return hasNext() ? this.keysetPageable.after(this.continuationToken) : null;
+    }
+}
@@ -21,9 +21,14 @@
 package com.github.ydespreaux.spring.data.jpa.query;
 
 import lombok.Getter;
+import org.hibernate.CacheMode;
 
+import javax.persistence.criteria.JoinType;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -37,12 +42,70 @@ public class QueryOptions {
     private final Set<String> associations = new HashSet<>();
     @Getter
     private boolean distinct = false;
+    /**
+     * Load the entities in read-only mode (no snapshot for the dirty checking) and never flush the persistence context
+     * before the query
+     */
+    @Getter
+    private boolean readOnly = false;
+    /**
+     * Join types of the criteria associations, by path. Without a join type, INNER is used when the criteria rejects
+     * the rows without the association, LEFT otherwise.
+     */
+    @Getter
+    private final Map<String, JoinType> joinTypes = new HashMap<>();
+    /**
+     * String match strategies of the criteria properties, by path. Without a strategy, the one of the settings is used.
+     */
+    @Getter
+    private final Map<String, StringMatch> stringMatches = new HashMap<>();
+    /**
+     * Normalized (upper case) shadow properties searched instead of the criteria properties by the CONTAINS, STARTS_WITH
+     * and ENDS_WITH operators, by path.
+     */
+    @Getter
+    private final Map<String, String> normalizedProperties = new HashMap<>();
+    /**
+     * Store the results in the query cache of Hibernate, which must be enabled (hibernate.cache.use_query_cache)
+     */
+    @Getter
+    private boolean cacheable = false;
+    /**
+     * Region of the query cache, null for the default region
+     */
+    @Getter
+    private String cacheRegion;
+    /**
+     * Interaction of the query with the second-level cache, null for the mode of the session
+     */
+    @Getter
+    private CacheMode cacheMode;
+    /**
+     * JDBC fetch size, null for the default of the driver
+     */
+    @Getter
+    private Integer fetchSize;
+    /**
+     * Query timeout, null for no timeout
+     */
+    @Getter
+    private Duration timeout;
 
     public QueryOptions distinct(boolean distinct) {
         this.distinct = distinct;
         return this;
     }
 
+    /**
+     * @param readOnly true to load read-only entities, without flushing the persistence context
+     * @return
+     * @since 1.2.1
+     */
+    public QueryOptions readOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+        return this;
+    }
+
     public QueryOptions withAssociation(String association) {
         this.associations.add(association);
         return this;
@@ -53,6 +116,89 @@ public class QueryOptions {
         return this;
     }
 
+    /**
+     * @param association path of the association in the criteria
+     * @param joinType    join type of the association
+     * @return
+     * @since 1.2.1
+     */
+    public QueryOptions withJoinType(String association, JoinType joinType) {
+        this.joinTypes.put(association, joinType);
+        return this;
+    }
+
+    /**
+     * @param property    path of the property in the criteria
+     * @param stringMatch string match strategy of the property
+     * @return
+     * @since 1.2.1
+     */
+    public QueryOptions withStringMatch(String property, StringMatch stringMatch) {
+        this.stringMatches.put(property, stringMatch);
+        return this;
+    }
+
+    /**
+     * @param property           path of the property in the criteria
+     * @param normalizedProperty path of the property holding the upper case value of the property
+     * @return
+     * @since 1.2.1
+     */
+    public QueryOptions withNormalizedProperty(String property, String normalizedProperty) {
+        this.normalizedProperties.put(property, normalizedProperty);
+        return this;
+    }
+
+    /**
+     * @param cacheable true to store the results in the query cache
+     * @return
+     * @since 1.2.1
+     */
+    public QueryOptions cacheable(boolean cacheable) {
+        this.cacheable = cacheable;
+        return this;
+    }
+
+    /**
+     * @param cacheRegion region of the query cache
+     * @return
+     * @since 1.2.1
+     */
+    public QueryOptions cacheRegion(String cacheRegion) {
+        this.cacheRegion = cacheRegion;
+        return this;
+    }
+
+    /**
+     * @param cacheMode interaction of the query with the second-level cache
+     * @return
+     * @since 1.2.1
+     */
+    public QueryOptions cacheMode(CacheMode cacheMode) {
+        this.cacheMode = cacheMode;
+        return this;
+    }
+
+    /**
+     * @param fetchSize JDBC fetch size
+     * @return
+     * @since 1.2.1
+     */
+    public QueryOptions fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * @param timeout query timeout
+     * @return
+     * @since 1.2.1
+     */
+    public QueryOptions timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
     /**
      * @return
      */
@@ -22,8 +22,17 @@ package com.github.ydespreaux.spring.data.jpa.query;
 
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.NumberUtils;
 
+import javax.persistence.Parameter;
+import javax.persistence.Query;
 import javax.persistence.criteria.*;
+import javax.persistence.metamodel.ManagedType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.*;
 
 import static com.github.ydespreaux.spring.data.jpa.query.Criteria.CriteriaEntry;
@@ -35,21 +44,282 @@ import static com.github.ydespreaux.spring.data.jpa.query.Criteria.CriteriaEntry
 public class SpecificationCriteria<T> implements Specification<T> {
 
     private static final long serialVersionUID = 3295157927853086841L;
+    private static final char LIKE_ESCAPE = '\\';
+    private static final String PARAMETER_PREFIX = "criteria";
 
     private Criteria criteria;
+    /**
+     * Parameters created by the last call to toPredicate, with their target java type (null if values are rendered as literals)
+     */
+    private transient Map<ParameterExpression<?>, Class<?>> parameters;
+    private final boolean parameterized;
+    private String parameterPrefix = PARAMETER_PREFIX;
+    private int inClauseMaxSize = 0;
+    private boolean inClausePadding = false;
+    private Map<String, JoinType> joinTypes = Collections.emptyMap();
+    private StringMatch stringMatch = StringMatch.UPPER;
+    private Map<String, StringMatch> stringMatches = Collections.emptyMap();
+    private Map<String, String> normalizedProperties = Collections.emptyMap();
+    /**
+     * Joins of the last call to toPredicate that can be inner joins, because the criteria rejects the rows without them
+     */
+    private transient Set<String> innerJoins;
+    /**
+     * Parsed property paths, shared with the other specifications of a repository
+     */
+    private transient CriteriaPathCache paths;
 
     public SpecificationCriteria(Criteria criteria) {
+        this(criteria, false);
+    }
+
+    /**
+     * @param criteria      the criteria
+     * @param parameterized if true, values are declared as {@link ParameterExpression}s instead of literals, and must be
+     *                      bound with {@link #bindParameters(Query, Criteria)}
+     * @since 1.2.1
+     */
+    public SpecificationCriteria(Criteria criteria, boolean parameterized) {
         this.criteria = criteria;
+        this.parameterized = parameterized;
+    }
+
+    /**
+     * Prefix of the names of the parameters, distinct for each specification of a query combining several criteria.
+     *
+     * @param parameterPrefix the prefix
+     * @return this specification
+     * @since 1.2.1
+     */
+    public SpecificationCriteria<T> parameterPrefix(String parameterPrefix) {
+        Assert.hasText(parameterPrefix, "Parameter prefix must not be empty!");
+        this.parameterPrefix = parameterPrefix;
+        return this;
+    }
+
+    /**
+     * Maximum number of values of an IN clause. Larger lists are split into several IN clauses joined with OR.
+     *
+     * @param inClauseMaxSize the maximum number of values, 0 for no limit
+     * @return this specification
+     * @since 1.2.1
+     */
+    public SpecificationCriteria<T> inClauseMaxSize(int inClauseMaxSize) {
+        this.inClauseMaxSize = inClauseMaxSize;
+        return this;
+    }
+
+    /**
+     * Pad the values of the parameterized IN clauses to the next power of two by repeating the last value,
+     * so that only log2(N) distinct statements exist for the lists of up to N values.
+     *
+     * @param inClausePadding true to pad the IN clauses
+     * @return this specification
+     * @since 1.2.1
+     */
+    public SpecificationCriteria<T> inClausePadding(boolean inClausePadding) {
+        this.inClausePadding = inClausePadding;
+        return this;
+    }
+
+    /**
+     * @param joinTypes join types by association path, overriding the inferred join types
+     * @return
+     * @since 1.2.1
+     */
+    public SpecificationCriteria<T> joinTypes(Map<String, JoinType> joinTypes) {
+        this.joinTypes = joinTypes;
+        return this;
+    }
+
+    /**
+     * @param stringMatch default translation of the CONTAINS, STARTS_WITH and ENDS_WITH operators
+     * @return this specification
+     * @since 1.2.1
+     */
+    public SpecificationCriteria<T> stringMatch(StringMatch stringMatch) {
+        this.stringMatch = stringMatch;
+        return this;
+    }
+
+    /**
+     * @param stringMatches translation of the CONTAINS, STARTS_WITH and ENDS_WITH operators, by property path
+     * @return this specification
+     * @since 1.2.1
+     */
+    public SpecificationCriteria<T> stringMatches(Map<String, StringMatch> stringMatches) {
+        this.stringMatches = stringMatches;
+        return this;
+    }
+
+    /**
+     * @param normalizedProperties upper case shadow properties searched by the CONTAINS, STARTS_WITH and ENDS_WITH
+     *                             operators, by property path
+     * @return this specification
+     * @since 1.2.1
+     */
+    public SpecificationCriteria<T> normalizedProperties(Map<String, String> normalizedProperties) {
+        this.normalizedProperties = normalizedProperties;
+        return this;
+    }
+
+    /**
+     * @param paths the cache of the parsed property paths, shared by the specifications of a repository
+     * @return this specification
+     * @since 1.2.1
+     */
+    public SpecificationCriteria<T> paths(CriteriaPathCache paths) {
+        this.paths = paths;
+        return this;
+    }
+
+    /**
+     * @return the cache of the parsed property paths, owned by this specification if none was given
+     */
+    private CriteriaPathCache getPaths() {
+        if (this.paths == null) {
+            this.paths = new CriteriaPathCache();
+        }
+        return this.paths;
+    }
+
+    /**
+     * Bind the values of the given criteria to the parameters of a query built by this specification.
+     * The criteria must have the same {@link CriteriaShape} as the one used to build the query.
+     *
+     * @param query    the query
+     * @param criteria the criteria holding the values
+     * @since 1.2.1
+     */
+    @SuppressWarnings("unchecked")
+    public void bindParameters(Query query, Criteria criteria) {
+        if (this.parameters == null || this.parameters.isEmpty()) {
+            return;
+        }
+        List<Object> values = getParameterValues(criteria);
+        if (values.size() != this.parameters.size()) {
+            throw new IllegalArgumentException(String.format("Criteria [%s] does not match the shape of the query", criteria));
+        }
+        Iterator<Object> iterator = values.iterator();
+        this.parameters.forEach((parameter, type) ->
+                query.setParameter((Parameter<Object>) parameter, convertValue(iterator.next(), type)));
     }
 
     @Override
     public Predicate toPredicate(@NonNull Root<T> root, @NonNull CriteriaQuery<?> query, @NonNull CriteriaBuilder cb) {
+        return toPredicate(root, cb);
+    }
+
+    /**
+     * Predicate of the criteria, for statements that are not a CriteriaQuery (CriteriaUpdate, CriteriaDelete, Subquery).
+     *
+     * @param root
+     * @param cb
+     * @return
+     */
+    public Predicate toPredicate(@NonNull Root<T> root, @NonNull CriteriaBuilder cb) {
+        this.parameters = this.parameterized ? new LinkedHashMap<>() : null;
         if (this.criteria == null) {
             return null;
         }
+        Set<String> innerJoins = getInnerJoins(root.getModel(), this.criteria);
+        this.innerJoins = innerJoins == null ? Collections.emptySet() : innerJoins;
         return toPredicate(new HashMap<>(), this.criteria, root, cb);
     }
 
+    /**
+     * Joins that can be inner joins because the criteria rejects the rows without them: the joins of an entry with any
+     * operator but IS NULL, the joins of any operand of a conjunction, and the joins common to all the operands of a disjunction.
+     * The entries rendered as constant predicates (empty IN or NOT IN) don't need their joins.
+     *
+     * @param type
+     * @param criteria
+     * @return the inner joins, null if the criteria does not restrict the rows
+     */
+    @Nullable
+    private Set<String> getInnerJoins(ManagedType<?> type, Criteria criteria) {
+        boolean conjunction = criteria.isAnd() || criteria.getCriteriaChain().size() + criteria.getQueryCriteriaEntries().size() <= 1;
+        Set<String> innerJoins = null;
+        for (Criteria chainedCriteria : criteria.getCriteriaChain()) {
+            innerJoins = combine(innerJoins, getInnerJoins(type, chainedCriteria), conjunction);
+        }
+        for (CriteriaEntry entry : criteria.getQueryCriteriaEntries()) {
+            innerJoins = combine(innerJoins, getInnerJoins(type, entry), conjunction);
+        }
+        return innerJoins;
+    }
+
+    /**
+     * @param type
+     * @param entry
+     * @return the joins of the entry, null for an empty IN (always false: neutral in a disjunction)
+     */
+    @Nullable
+    private Set<String> getInnerJoins(ManagedType<?> type, CriteriaEntry entry) {
+        if (entry.getKey() == Criteria.OperationKey.IN && isEmpty(entry.getValue())) {
+            return null;
+        }
+        Set<String> entryJoins = new HashSet<>();
+        if (entry.getKey() == Criteria.OperationKey.NULL || (entry.getKey() == Criteria.OperationKey.NOT_IN && isEmpty(entry.getValue()))) {
+            return entryJoins;
+        }
+        CriteriaPath path = getPaths().get(type, getPropertyName(entry));
+        for (int i = 0; i < path.getJoinCount(); i++) {
+            entryJoins.add(path.getJoinKey(i));
+        }
+        return entryJoins;
+    }
+
+    @Nullable
+    private static Set<String> combine(@Nullable Set<String> joins, @Nullable Set<String> operandJoins, boolean conjunction) {
+        if (joins == null) {
+            return operandJoins;
+        }
+        if (operandJoins == null) {
+            return joins;
+        }
+        if (conjunction) {
+            joins.addAll(operandJoins);
+        } else {
+            joins.retainAll(operandJoins);
+        }
+        return joins;
+    }
+
+    /**
+     * @param key path of the join
+     * @return the join type of the options, or the inferred one
+     */
+    private JoinType getJoinType(String key) {
+        JoinType joinType = this.joinTypes.get(key);
+        if (joinType != null) {
+            return joinType;
+        }
+        return this.innerJoins != null && this.innerJoins.contains(key) ? JoinType.INNER : JoinType.LEFT;
+    }
+
+    /**
+     * @param type managed type of the root
+     * @return true if a field of the criteria is the property of an association, which is translated into a join
+     */
+    public boolean hasJoins(ManagedType<?> type) {
+        return this.criteria != null && hasJoins(type, this.criteria);
+    }
+
+    private boolean hasJoins(ManagedType<?> type, Criteria criteria) {
+        for (CriteriaEntry entry : criteria.getQueryCriteriaEntries()) {
+            if (getPaths().get(type, getPropertyName(entry)).getJoinCount() > 0) {
+                return true;
+            }
+        }
+        for (Criteria chainedCriteria : criteria.getCriteriaChain()) {
+            if (hasJoins(type, chainedCriteria)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * @param criteria
      * @param root
@@ -92,29 +362,75 @@ public class SpecificationCriteria<T> implements Specification<T> {
      * @return
      */
     private Predicate toPredicate(Map<String, Join<?, ?>> joinMap, CriteriaEntry entry, Root<T> root, CriteriaBuilder cb) {
-        Path<?> path = getPath(joinMap, root, root.getJavaType().getSimpleName(), splitProperties(entry.getField().getName()));
+        Path<?> path = getPath(joinMap, root, getPaths().get(root.getModel(), getPropertyName(entry)));
         return toPredicate(cb, path, entry);
     }
 
     /**
+     * @param entry
+     * @return the path of the property searched by the entry: the normalized property of a string match, if any
+     */
+    private String getPropertyName(CriteriaEntry entry) {
+        String name = entry.getField().getName();
+        if (isStringMatch(entry)) {
+            return this.normalizedProperties.getOrDefault(name, name);
+        }
+        return name;
+    }
+
+    private static boolean isStringMatch(CriteriaEntry entry) {
+        switch (entry.getKey()) {
+            case CONTAINS:
+            case ENDS_WITH:
+            case STARTS_WITH:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private StringMatch getStringMatch(CriteriaEntry entry) {
+        return this.stringMatches.getOrDefault(entry.getField().getName(), this.stringMatch);
+    }
+
+    /**
+     * @param entry
+     * @return true if the search is compared with an upper case value: a normalized property, or the upper function
+     */
+    private boolean isUpperCase(CriteriaEntry entry) {
+        return this.normalizedProperties.containsKey(entry.getField().getName()) || getStringMatch(entry) == StringMatch.UPPER;
+    }
+
+    /**
+     * @param entry
+     * @return true if the entry is translated into a range of the column instead of LIKE
+     */
+    private boolean isPrefixRange(CriteriaEntry entry) {
+        return entry.getKey() == Criteria.OperationKey.STARTS_WITH && getStringMatch(entry) == StringMatch.PREFIX_RANGE;
+    }
+
+    /**
+     * @param joinMap the joins already created, by path
      * @param root
-     * @param properties
+     * @param path    the parsed property path
      * @param <Y>
      * @return
      */
-    private <Y> Path<Y> getPath(Map<String, Join<?, ?>> joinMap, From<T, ?> root, String currentPath, String... properties) {
-        if (properties.length == 1) {
-            return root.get(properties[0]);
+    private <Y> Path<Y> getPath(Map<String, Join<?, ?>> joinMap, Root<T> root, CriteriaPath path) {
+        From<?, ?> from = root;
+        for (int i = 0; i < path.getJoinCount(); i++) {
+            String key = path.getJoinKey(i);
+            Join<?, ?> join = joinMap.get(key);
+            if (join == null) {
+                join = from.join(path.getAttribute(i).getName(), getJoinType(key));
+                joinMap.put(key, join);
+            }
+            from = join;
         }
-        String path = currentPath + "." + properties[0];
-        Join<T, ?> join = (Join<T, ?>) joinMap.get(path);
-        if (join == null) {
-            join = root.join(properties[0], JoinType.LEFT);
-            joinMap.put(path, join);
+        if (path.isForeignKey()) {
+            return from.get(path.getAttribute(path.getJoinCount()).getName()).get(path.getLastAttribute().getName());
         }
-        String[] newProperties = new String[properties.length - 1];
-        System.arraycopy(properties, 1, newProperties, 0, newProperties.length);
-        return getPath(joinMap, join, path, newProperties);
+        return from.get(path.getLastAttribute().getName());
     }
 
     /**
@@ -129,38 +445,399 @@ public class SpecificationCriteria<T> implements Specification<T> {
         Object value = entry.getValue();
         switch (entry.getKey()) {
             case EQUALS:
-                return builder.equal(path, value);
+                return builder.equal(path, operand(builder, path.getJavaType(), value));
             case NOT_EQUALS:
-                return builder.notEqual(path, value);
+                return builder.notEqual(path, operand(builder, path.getJavaType(), value));
             case NOT_NULL:
                 return builder.isNotNull(path);
             case NULL:
                 return builder.isNull(path);
             case BETWEEN:
-                Comparable[] values = (Comparable[]) value;
-                return builder.between(castPath(path, Comparable.class), values[0], values[1]);
             case GREATER_EQUAL:
-                return builder.greaterThanOrEqualTo(castPath(path, Comparable.class), (Comparable) value);
             case GREATER:
-                return builder.greaterThan(castPath(path, Comparable.class), (Comparable) value);
             case LESS_EQUAL:
-                return builder.lessThanOrEqualTo(castPath(path, Comparable.class), (Comparable) value);
             case LESS:
-                return builder.lessThan(castPath(path, Comparable.class), (Comparable) value);
+                return comparisonPredicate(builder, path, entry.getKey(), value);
             case IN:
-                return path.in((Iterable<?>) value);
+                return inPredicate(builder, path, value);
             case NOT_IN:
-                return builder.not(path.in((Iterable<?>) value));
+                // an empty IN is rendered as "in ()", which is not valid SQL
+                return isEmpty(value) ? builder.conjunction() : builder.not(inPredicate(builder, path, value));
             case CONTAINS:
-                return builder.like(builder.upper(castPath(path, String.class)), "%" + ((String) value).toUpperCase() + "%");
             case ENDS_WITH:
-                return builder.like(builder.upper(castPath(path, String.class)), "%" + ((String) value).toUpperCase());
             case STARTS_WITH:
-                return builder.like(builder.upper(castPath(path, String.class)), ((String) value).toUpperCase() + "%");
+                return stringMatchPredicate(builder, castPath(path, String.class), entry);
         }
         return null;
     }
 
+    /**
+     * @param builder
+     * @param path
+     * @param entry
+     * @return
+     */
+    private Predicate stringMatchPredicate(CriteriaBuilder builder, Expression<String> path, CriteriaEntry entry) {
+        if (isPrefixRange(entry)) {
+            String[] range = prefixRange(entry);
+            return builder.and(
+                    builder.greaterThanOrEqualTo(path, operand(builder, String.class, range[0])),
+                    builder.lessThan(path, operand(builder, String.class, range[1])));
+        }
+        boolean function = !this.normalizedProperties.containsKey(entry.getField().getName()) && getStringMatch(entry) == StringMatch.UPPER;
+        return builder.like(function ? builder.upper(path) : path, operand(builder, String.class, likePattern(entry)), LIKE_ESCAPE);
+    }
+
+    /**
+     * @param builder
+     * @param path
+     * @param value
+     * @param <Y>
+     * @return
+     */
+    private <Y> Predicate inPredicate(CriteriaBuilder builder, Path<Y> path, Object value) {
+        if (isEmpty(value)) {
+            return builder.disjunction();
+        }
+        List<Predicate> predicates = new ArrayList<>();
+        for (List<Object> values : partition(toList((Iterable<?>) value))) {
+            if (this.parameters == null) {
+                predicates.add(path.in(values));
+            } else {
+                @SuppressWarnings("unchecked") // the values of the parameter are bound as a collection of any type
+                Class<Collection<?>> collectionType = (Class<Collection<?>>) (Class<?>) Collection.class;
+                ParameterExpression<Collection<?>> parameter = builder.parameter(collectionType, nextParameterName());
+                this.parameters.put(parameter, ClassUtils.resolvePrimitiveIfNecessary(path.getJavaType()));
+                predicates.add(path.in(parameter));
+            }
+        }
+        return predicates.size() == 1 ? predicates.get(0) : builder.or(toArray(predicates));
+    }
+
+    /**
+     * @param value the values of an IN clause
+     * @return true if there is no value
+     */
+    private static boolean isEmpty(Object value) {
+        return !((Iterable<?>) value).iterator().hasNext();
+    }
+
+    /**
+     * Splits the values of an IN clause into chunks of at most inClauseMaxSize values.
+     * When parameterized, the number of chunks only depends on the size bucket of the values (see {@link CriteriaShape})
+     * so that all the criteria of a shape declare the same parameters.
+     *
+     * @param values
+     * @return
+     */
+    private List<List<Object>> partition(List<Object> values) {
+        int size = values.size();
+        int chunks;
+        if (this.parameterized) {
+            int bucket = CriteriaShape.sizeBucket(size);
+            if (this.inClausePadding && bucket > size) {
+                List<Object> padded = new ArrayList<>(bucket);
+                padded.addAll(values);
+                Object last = values.get(size - 1);
+                while (padded.size() < bucket) {
+                    padded.add(last);
+                }
+                values = padded;
+                size = bucket;
+            }
+            chunks = this.inClauseMaxSize > 0 ? (bucket + this.inClauseMaxSize - 1) / this.inClauseMaxSize : 1;
+        } else {
+            chunks = this.inClauseMaxSize > 0 ? (size + this.inClauseMaxSize - 1) / this.inClauseMaxSize : 1;
+        }
+        if (chunks <= 1) {
+            return Collections.singletonList(values);
+        }
+        List<List<Object>> partition = new ArrayList<>(chunks);
+        int from = 0;
+        for (int i = 0; i < chunks; i++) {
+            int to = from + size / chunks + (i < size % chunks ? 1 : 0);
+            partition.add(values.subList(from, to));
+            from = to;
+        }
+        return partition;
+    }
+
+    /**
+     * The type of the path is only known at runtime: the path and the values are compared as raw comparables, the type
+     * of the path is checked by {@link #castPath(Path, Class)}.
+     *
+     * @param builder
+     * @param path
+     * @param key     BETWEEN, GREATER_EQUAL, GREATER, LESS_EQUAL or LESS
+     * @param value
+     * @return
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Predicate comparisonPredicate(CriteriaBuilder builder, Path<?> path, Criteria.OperationKey key, Object value) {
+        Expression<Comparable> expression = castPath(path, Comparable.class);
+        switch (key) {
+            case BETWEEN:
+                Comparable[] values = (Comparable[]) value;
+                if (values[0] == null) {
+                    return builder.lessThanOrEqualTo(expression, comparableOperand(builder, path, values[1]));
+                }
+                if (values[1] == null) {
+                    return builder.greaterThanOrEqualTo(expression, comparableOperand(builder, path, values[0]));
+                }
+                return builder.between(expression, comparableOperand(builder, path, values[0]), comparableOperand(builder, path, values[1]));
+            case GREATER_EQUAL:
+                return builder.greaterThanOrEqualTo(expression, comparableOperand(builder, path, value));
+            case GREATER:
+                return builder.greaterThan(expression, comparableOperand(builder, path, value));
+            case LESS_EQUAL:
+                return builder.lessThanOrEqualTo(expression, comparableOperand(builder, path, value));
+            case LESS:
+                return builder.lessThan(expression, comparableOperand(builder, path, value));
+            default:
+                throw new IllegalArgumentException("Not a comparison: " + key);
+        }
+    }
+
+    /**
+     * @param builder
+     * @param path
+     * @param value
+     * @return
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Expression<Comparable> comparableOperand(CriteriaBuilder builder, Path<?> path, Object value) {
+        return operand(builder, (Class) path.getJavaType(), value);
+    }
+
+    /**
+     * Creates the expression holding a value: a literal, or a parameter if this specification is parameterized.
+     *
+     * @param builder
+     * @param type
+     * @param value
+     * @param <V>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private <V> Expression<V> operand(CriteriaBuilder builder, Class<V> type, Object value) {
+        if (this.parameters == null) {
+            return builder.literal((V) value);
+        }
+        Class<V> parameterType = (Class<V>) ClassUtils.resolvePrimitiveIfNecessary(type);
+        ParameterExpression<V> parameter = builder.parameter(parameterType, nextParameterName());
+        this.parameters.put(parameter, parameterType);
+        return parameter;
+    }
+
+    /**
+     * The parameters are named, so that the query rendered by the persistence provider can be bound by name
+     * (e.g. on a stateless session).
+     *
+     * @return the name of the next parameter
+     */
+    private String nextParameterName() {
+        return this.parameterPrefix + this.parameters.size();
+    }
+
+    /**
+     * Values of the parameters of a criteria, in the order they are declared by toPredicate.
+     *
+     * @param criteria
+     * @return
+     */
+    private List<Object> getParameterValues(Criteria criteria) {
+        List<Object> values = new ArrayList<>();
+        if (criteria != null) {
+            collectParameterValues(criteria, values);
+        }
+        return values;
+    }
+
+    /**
+     * @param criteria
+     * @param values
+     */
+    private void collectParameterValues(Criteria criteria, List<Object> values) {
+        for (Criteria chainedCriteria : criteria.getCriteriaChain()) {
+            collectParameterValues(chainedCriteria, values);
+        }
+        for (CriteriaEntry entry : criteria.getQueryCriteriaEntries()) {
+            switch (entry.getKey()) {
+                case NULL:
+                case NOT_NULL:
+                    break;
+                case BETWEEN:
+                    for (Object bound : (Object[]) entry.getValue()) {
+                        if (bound != null) {
+                            values.add(bound);
+                        }
+                    }
+                    break;
+                case IN:
+                case NOT_IN:
+                    if (!isEmpty(entry.getValue())) {
+                        values.addAll(partition(toList((Iterable<?>) entry.getValue())));
+                    }
+                    break;
+                case CONTAINS:
+                case ENDS_WITH:
+                case STARTS_WITH:
+                    if (isPrefixRange(entry)) {
+                        values.addAll(Arrays.asList(prefixRange(entry)));
+                    } else {
+                        values.add(likePattern(entry));
+                    }
+                    break;
+                default:
+                    values.add(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @param entry
+     * @return
+     */
+    private String likePattern(CriteriaEntry entry) {
+        String search = escapeLike(searchValue(entry));
+        switch (entry.getKey()) {
+            case CONTAINS:
+                return "%" + search + "%";
+            case ENDS_WITH:
+                return "%" + search;
+            default:
+                return search + "%";
+        }
+    }
+
+    /**
+     * @param entry
+     * @return the search of the entry, in upper case if it's compared with an upper case value
+     */
+    private String searchValue(CriteriaEntry entry) {
+        String search = (String) entry.getValue();
+        return isUpperCase(entry) ? search.toUpperCase() : search;
+    }
+
+    /**
+     * Escapes the wildcards of a LIKE pattern
+     *
+     * @param search
+     * @return
+     */
+    static String escapeLike(String search) {
+        StringBuilder builder = new StringBuilder(search.length() + 4);
+        for (int i = 0; i < search.length(); i++) {
+            char c = search.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                builder.append(LIKE_ESCAPE);
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Bounds of the strings starting with the search: the search itself, and the smallest string greater than all the
+     * strings starting with the search (the search whose last character is incremented).
+     *
+     * @param entry
+     * @return the lower bound (inclusive) and the upper bound (exclusive)
+     */
+    private String[] prefixRange(CriteriaEntry entry) {
+        String prefix = searchValue(entry);
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+            end--;
+        }
+        if (end == 0) {
+            // no string is greater than all the strings starting with the search: the upper bound excludes the strings
+            // continuing with a MAX_VALUE character only
+            return new String[]{prefix, prefix + Character.MAX_VALUE};
+        }
+        return new String[]{prefix, prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1)};
+    }
+
+    /**
+     * @param values
+     * @return
+     */
+    private static List<Object> toList(Iterable<?> values) {
+        if (values instanceof List) {
+            return Collections.unmodifiableList((List<?>) values);
+        }
+        List<Object> list = new ArrayList<>();
+        values.forEach(list::add);
+        return list;
+    }
+
+    /**
+     * Converts numeric values to the type of the parameter (e.g. Integer to Long).
+     *
+     * @param value
+     * @param type
+     * @return
+     */
+    private static Object convertValue(Object value, Class<?> type) {
+        if (value instanceof Collection) {
+            List<Object> converted = new ArrayList<>(((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                converted.add(convertValue(element, type));
+            }
+            return converted;
+        }
+        return convertNumber(value, type);
+    }
+
+    /**
+     * Converts a number to the given numeric type (e.g. Integer to Long).
+     * A value that cannot be represented exactly by an integral type (e.g. 1.5 for a Long) is rejected
+     * rather than truncated, since the truncated value would silently change the meaning of the criteria.
+     *
+     * @param value the value, returned as-is if it is not a number or already of the given type
+     * @param type  the target type
+     * @return
+     * @throws IllegalArgumentException if the conversion would lose the fractional part or overflow
+     */
+    @SuppressWarnings("unchecked")
+    public static Object convertNumber(Object value, Class<?> type) {
+        Class<?> targetType = ClassUtils.resolvePrimitiveIfNecessary(type);
+        if (!(value instanceof Number) || !Number.class.isAssignableFrom(targetType) || targetType.isInstance(value)) {
+            return value;
+        }
+        Number number = (Number) value;
+        if (isIntegral(targetType) && !isIntegral(number.getClass())) {
+            BigDecimal decimal = toBigDecimal(number);
+            if (decimal == null || decimal.signum() != 0 && decimal.stripTrailingZeros().scale() > 0) {
+                throw new IllegalArgumentException(String.format("Value [%s] cannot be converted to %s without loss of precision",
+                        value, targetType.getSimpleName()));
+            }
+            number = decimal.toBigInteger();
+        }
+        return NumberUtils.convertNumberToTargetClass(number, (Class<Number>) targetType);
+    }
+
+    /**
+     * @param type
+     * @return true if the type only holds integral values
+     */
+    private static boolean isIntegral(Class<?> type) {
+        return type == Long.class || type == Integer.class || type == Short.class || type == Byte.class || type == BigInteger.class;
+    }
+
+    /**
+     * @param number
+     * @return the exact decimal value of the number, or null for NaN and infinite values
+     */
+    @Nullable
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        double value = number.doubleValue();
+        return Double.isNaN(value) || Double.isInfinite(value) ? null : new BigDecimal(value);
+    }
+
     /**
      * @param entry
      */
@@ -184,12 +861,4 @@ public class SpecificationCriteria<T> implements Specification<T> {
         throw new IllegalArgumentException(String.format("Could not convert java type [%s] to [%s]", valueType.getName(), path.getJavaType().getName()));
     }
 
-    /**
-     * @param propertyPath
-     * @return
-     */
-    private String[] splitProperties(String propertyPath) {
-        return propertyPath.split("\\.");
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.query;
+
+/**
+ * Translation of the CONTAINS, STARTS_WITH and ENDS_WITH operators. In all the strategies, the {@code %} and {@code _}
+ * characters of the search are escaped.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public enum StringMatch {
+
+    /**
+     * {@code upper(column) LIKE 'VALUE%'}: case insensitive with any collation, but the index of the column can't be used.
+     */
+    UPPER,
+    /**
+     * {@code column LIKE 'value%'}: the case sensitivity is the one of the column collation, the index of the column
+     * can be used by a prefix search.
+     */
+    COLLATION,
+    /**
+     * STARTS_WITH as the range {@code column >= 'value' AND column < 'valuf'}, which can range-scan the index of the column
+     * on any database. CONTAINS and ENDS_WITH as {@link #COLLATION}.
+     */
+    PREFIX_RANGE
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded executor of the asynchronous criteria queries: a fixed number of threads and a bounded queue. A query
+ * submitted when the queue is full is rejected, its future completes with a {@link RejectedExecutionException}.
+ * The size of the queue and the number of rejected queries measure the back-pressure.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public class CriteriaAsyncExecutor implements Executor, DisposableBean {
+
+    public static final int DEFAULT_POOL_SIZE = 4;
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public CriteriaAsyncExecutor() {
+        this(DEFAULT_POOL_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param poolSize      number of threads
+     * @param queueCapacity maximum number of queries waiting for a thread
+     */
+    public CriteriaAsyncExecutor(int poolSize, int queueCapacity) {
+        Assert.isTrue(poolSize > 0, "Pool size must be positive!");
+        Assert.isTrue(queueCapacity > 0, "Queue capacity must be positive!");
+        this.queueCapacity = queueCapacity;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CriteriaThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        try {
+            this.executor.execute(command);
+        } catch (RejectedExecutionException e) {
+            this.rejectedCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the threads once the submitted queries are executed.
+     */
+    @Override
+    public void destroy() {
+        this.executor.shutdown();
+    }
+
+    public int getPoolSize() {
+        return this.executor.getMaximumPoolSize();
+    }
+
+    /**
+     * @return the number of threads executing a query
+     */
+    public int getActiveCount() {
+        return this.executor.getActiveCount();
+    }
+
+    /**
+     * @return the number of queries waiting for a thread
+     */
+    public int getQueueSize() {
+        return this.executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return this.queueCapacity;
+    }
+
+    public long getCompletedCount() {
+        return this.executor.getCompletedTaskCount();
+    }
+
+    /**
+     * @return the number of queries rejected because the queue was full
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CriteriaAsyncExecutor[poolSize=%d, active=%d, queued=%d, queueCapacity=%d, completed=%d, rejected=%d]",
+                getPoolSize(), getActiveCount(), getQueueSize(), this.queueCapacity, getCompletedCount(), getRejectedCount());
+    }
+
+    private static final class CriteriaThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jpa-criteria-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Demand-driven cursor on the results of a criteria query. Each call to {@link #next(int)} reads at most the requested
+ * number of entities on the executor, after the previous batch: the rows are pulled from the database cursor as they
+ * are requested and never buffered beyond one batch. The query is executed by the first batch, the connection is
+ * released once the last row is read, on error or when the cursor is closed.
+ * <p>
+ * The cursor maps to a back-pressured publisher, the demand of the subscriber being the size of the next batch.
+ *
+ * @param <T>
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public final class CriteriaCursor<T> implements AutoCloseable {
+
+    private final Supplier<Stream<T>> opener;
+    private final Executor executor;
+    private CompletableFuture<List<T>> last = CompletableFuture.completedFuture(Collections.emptyList());
+    private Stream<T> stream;
+    private Iterator<T> iterator;
+    private volatile boolean exhausted;
+    private volatile boolean closed;
+
+    /**
+     * @param opener   executes the query, called by the first batch
+     * @param executor executor of the batches
+     */
+    CriteriaCursor(Supplier<Stream<T>> opener, Executor executor) {
+        this.opener = opener;
+        this.executor = executor;
+    }
+
+    /**
+     * Reads the next entities. The returned list holds fewer entities than requested once the cursor is exhausted.
+     * A batch rejected by the executor completes exceptionally.
+     *
+     * @param demand maximum number of entities to read
+     * @return the next entities
+     */
+    public synchronized CompletableFuture<List<T>> next(int demand) {
+        Assert.isTrue(demand > 0, "Demand must be positive!");
+        CompletableFuture<List<T>> batch = new CompletableFuture<>();
+        this.last.whenComplete((previous, failure) -> {
+            if (failure != null) {
+                batch.completeExceptionally(failure);
+                return;
+            }
+            try {
+                this.executor.execute(() -> {
+                    try {
+                        batch.complete(this.read(demand));
+                    } catch (RuntimeException e) {
+                        this.release();
+                        batch.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                batch.completeExceptionally(e);
+            }
+        });
+        this.last = batch;
+        return batch;
+    }
+
+    /**
+     * @return true when all the entities were read or the cursor is closed
+     */
+    public boolean isExhausted() {
+        return this.exhausted || this.closed;
+    }
+
+    /**
+     * Cancels the cursor: the connection is released once the pending batch completes, the next batches are empty.
+     */
+    @Override
+    public synchronized void close() {
+        this.closed = true;
+        this.last.whenComplete((previous, failure) -> this.release());
+    }
+
+    private List<T> read(int demand) {
+        if (this.isExhausted()) {
+            return Collections.emptyList();
+        }
+        if (this.iterator == null) {
+            this.stream = this.opener.get();
+            this.iterator = this.stream.iterator();
+        }
+        List<T> entities = new ArrayList<>(Math.min(demand, 1024));
+        while (entities.size() < demand && this.iterator.hasNext()) {
+            entities.add(this.iterator.next());
+        }
+        if (entities.size() < demand) {
+            this.exhausted = true;
+            this.release();
+        }
+        return entities;
+    }
+
+    private synchronized void release() {
+        if (this.stream != null) {
+            this.stream.close();
+            this.stream = null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+/**
+ * Receives the measures of the criteria queries executed by the repositories: the time of the translate, execute and
+ * count phases and the number of rows returned, tagged by repository, method and criteria shape. An implementation
+ * records them in a metrics registry, see {@link InMemoryCriteriaMetrics}.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@FunctionalInterface
+public interface CriteriaMetrics {
+
+    CriteriaMetrics NONE = event -> {
+    };
+
+    /**
+     * Called by the thread executing the query, once it completes.
+     *
+     * @param event the measures of the query
+     */
+    void record(CriteriaQueryEvent event);
+}
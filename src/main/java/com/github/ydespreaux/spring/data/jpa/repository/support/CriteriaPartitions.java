@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import com.github.ydespreaux.spring.data.jpa.query.Criteria;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.lang.Nullable;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Splits the range of values of a property into contiguous partitions of the same width. The partitions are
+ * criteria {@code lower <= property < upper}, the last one includes the maximum value. The property must be
+ * an integral number or a date.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+final class CriteriaPartitions {
+
+    private CriteriaPartitions() {
+    }
+
+    /**
+     * @param criteria   criteria of the scan
+     * @param property   partitioned property
+     * @param min        minimum value of the property
+     * @param max        maximum value of the property
+     * @param partitions maximum number of partitions
+     * @return the criteria of the partitions
+     */
+    static List<Criteria> split(@Nullable Criteria criteria, String property, Comparable<?> min, Comparable<?> max, int partitions) {
+        long lower = toLong(property, min);
+        long upper = toLong(property, max);
+        LongFunction<Comparable<?>> decoder = decoder(min);
+        BigInteger width = BigInteger.valueOf(upper).subtract(BigInteger.valueOf(lower)).add(BigInteger.ONE);
+        int count = (int) Math.min(partitions, width.min(BigInteger.valueOf(Integer.MAX_VALUE)).longValue());
+        List<Criteria> ranges = new ArrayList<>(count);
+        Comparable<?> from = min;
+        for (int i = 1; i <= count; i++) {
+            Criteria range;
+            if (i == count) {
+                range = new Criteria(property).greaterThanEqual(from).lessThanEqual(max);
+            } else {
+                long bound = width.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(count)).add(BigInteger.valueOf(lower)).longValue();
+                Comparable<?> to = decoder.apply(bound);
+                range = new Criteria(property).greaterThanEqual(from).lessThan(to);
+                from = to;
+            }
+            ranges.add(criteria == null ? range : range.and(criteria));
+        }
+        return ranges;
+    }
+
+    private static long toLong(String property, Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof BigInteger) {
+            return ((BigInteger) value).longValueExact();
+        }
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).toEpochDay();
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toEpochSecond(ZoneOffset.UTC);
+        }
+        if (value instanceof Instant) {
+            return ((Instant) value).toEpochMilli();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        throw new InvalidDataAccessApiUsageException(String.format("Cannot partition the property '%s' of type %s, an integral number or a date is expected", property, value.getClass().getName()));
+    }
+
+    private static LongFunction<Comparable<?>> decoder(Object value) {
+        if (value instanceof Long) {
+            return Long::valueOf;
+        }
+        if (value instanceof Integer) {
+            return bound -> (int) bound;
+        }
+        if (value instanceof Short) {
+            return bound -> (short) bound;
+        }
+        if (value instanceof Byte) {
+            return bound -> (byte) bound;
+        }
+        if (value instanceof BigInteger) {
+            return BigInteger::valueOf;
+        }
+        if (value instanceof LocalDate) {
+            return LocalDate::ofEpochDay;
+        }
+        if (value instanceof LocalDateTime) {
+            return bound -> LocalDateTime.ofEpochSecond(bound, 0, ZoneOffset.UTC);
+        }
+        if (value instanceof Instant) {
+            return Instant::ofEpochMilli;
+        }
+        if (value instanceof Timestamp) {
+            return Timestamp::new;
+        }
+        if (value instanceof java.sql.Date) {
+            return java.sql.Date::new;
+        }
+        return Date::new;
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import com.github.ydespreaux.spring.data.jpa.query.Criteria;
+import com.github.ydespreaux.spring.data.jpa.query.SpecificationCriteria;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.Query;
+import org.hibernate.query.spi.QueryImplementor;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Parameter;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.ParameterExpression;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded LRU cache of the criteria queries compiled by a repository, keyed by the shape of the query.
+ * A cached query is parameterized: only the values of the criteria are bound on each execution, so the JPQL
+ * rendered by the persistence provider is the same for every execution and its query plan cache is reused.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public class CriteriaQueryCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+    private final int maximumSize;
+    private final Map<Object, CompiledQuery<?>> queries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public CriteriaQueryCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize maximum number of compiled queries, 0 to disable the cache
+     */
+    public CriteriaQueryCache(int maximumSize) {
+        Assert.isTrue(maximumSize >= 0, "Maximum size must not be negative!");
+        this.maximumSize = maximumSize;
+        this.queries = new LinkedHashMap<Object, CompiledQuery<?>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CompiledQuery<?>> eldest) {
+                if (size() > CriteriaQueryCache.this.maximumSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the query compiled for the given key, compiling it if necessary.
+     *
+     * @param key      the key
+     * @param compiler the function compiling the query
+     * @param <R>      the result type
+     * @return the compiled query
+     */
+    @SuppressWarnings("unchecked")
+    <R> CompiledQuery<R> get(Object key, Supplier<CompiledQuery<R>> compiler) {
+        CompiledQuery<R> query;
+        synchronized (this.queries) {
+            query = (CompiledQuery<R>) this.queries.get(key);
+        }
+        if (query != null) {
+            this.hitCount.incrementAndGet();
+            return query;
+        }
+        this.missCount.incrementAndGet();
+        query = compiler.get();
+        if (this.maximumSize > 0) {
+            synchronized (this.queries) {
+                this.queries.put(key, query);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Removes all the compiled queries.
+     */
+    public void clear() {
+        synchronized (this.queries) {
+            this.queries.clear();
+        }
+    }
+
+    /**
+     * @return the number of compiled queries
+     */
+    public int size() {
+        synchronized (this.queries) {
+            return this.queries.size();
+        }
+    }
+
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * @return the ratio of lookups that found a compiled query, 0 if the cache has not been used
+     */
+    public double getHitRatio() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0d : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CriteriaQueryCache[size=%d, maximumSize=%d, hits=%d, misses=%d, evictions=%d]",
+                size(), this.maximumSize, getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    /**
+     * A criteria query built once for a shape, with the specification that declared its parameters
+     * and the parameters added by the repository (e.g. keyset). A batch query holds the specifications of all its
+     * criteria.
+     *
+     * @param <R> the result type
+     */
+    static final class CompiledQuery<R> {
+
+        private final CriteriaQuery<R> criteriaQuery;
+        private final SpecificationCriteria<?> specification;
+        private final List<? extends SpecificationCriteria<?>> batchSpecifications;
+        private final List<ParameterExpression<?>> parameters;
+        /**
+         * HQL rendered by an entity manager, and values of the literals it renders as parameters
+         */
+        private volatile String queryString;
+        private volatile Map<String, Object> literalValues;
+
+        CompiledQuery(CriteriaQuery<R> criteriaQuery, SpecificationCriteria<?> specification) {
+            this(criteriaQuery, specification, Collections.emptyList());
+        }
+
+        CompiledQuery(CriteriaQuery<R> criteriaQuery, SpecificationCriteria<?> specification, List<ParameterExpression<?>> parameters) {
+            this(criteriaQuery, specification, Collections.singletonList(specification), parameters);
+        }
+
+        private CompiledQuery(CriteriaQuery<R> criteriaQuery, SpecificationCriteria<?> specification,
+                              List<? extends SpecificationCriteria<?>> batchSpecifications, List<ParameterExpression<?>> parameters) {
+            this.criteriaQuery = criteriaQuery;
+            this.specification = specification;
+            this.batchSpecifications = batchSpecifications;
+            this.parameters = parameters;
+        }
+
+        /**
+         * @param criteriaQuery  the batch query
+         * @param specifications the specifications of the criteria of the batch, with distinct parameter names
+         * @param <R>
+         * @return
+         */
+        static <R> CompiledQuery<R> ofBatch(CriteriaQuery<R> criteriaQuery, List<? extends SpecificationCriteria<?>> specifications) {
+            return new CompiledQuery<>(criteriaQuery, specifications.get(0), specifications, Collections.emptyList());
+        }
+
+        /**
+         * @return the parameters added by the repository
+         */
+        List<ParameterExpression<?>> getParameters() {
+            return this.parameters;
+        }
+
+        /**
+         * Creates a query and binds the values of the criteria and of the parameters added by the repository.
+         *
+         * @param em       the entity manager
+         * @param criteria the criteria, of the same shape as the compiled one
+         * @param values   the values of the parameters added by the repository
+         * @return the query
+         */
+        @SuppressWarnings("unchecked")
+        TypedQuery<R> createQuery(EntityManager em, Criteria criteria, List<?> values) {
+            TypedQuery<R> query = createQuery(em, criteria);
+            for (int i = 0; i < this.parameters.size(); i++) {
+                query.setParameter((Parameter<Object>) this.parameters.get(i), values.get(i));
+            }
+            return query;
+        }
+
+        /**
+         * Creates a batch query and binds the values of its criteria.
+         *
+         * @param em       the entity manager
+         * @param criteria the criteria of the batch, of the same shapes as the compiled ones
+         * @return the query
+         */
+        TypedQuery<R> createQuery(EntityManager em, List<Criteria> criteria) {
+            Assert.isTrue(criteria.size() == this.batchSpecifications.size(), "Criteria must match the specifications of the batch!");
+            TypedQuery<R> query = em.createQuery(this.criteriaQuery);
+            for (int i = 0; i < criteria.size(); i++) {
+                this.batchSpecifications.get(i).bindParameters(query, criteria.get(i));
+            }
+            return query;
+        }
+
+        /**
+         * Creates a query and binds the values of the criteria.
+         *
+         * @param em       the entity manager
+         * @param criteria the criteria, of the same shape as the compiled one
+         * @return the query
+         */
+        TypedQuery<R> createQuery(EntityManager em, Criteria criteria) {
+            TypedQuery<R> query = em.createQuery(this.criteriaQuery);
+            this.specification.bindParameters(query, criteria);
+            return query;
+        }
+
+        /**
+         * @return true if the HQL of the query has been rendered, see {@link #render(EntityManager)}
+         */
+        boolean isRendered() {
+            return this.queryString != null;
+        }
+
+        /**
+         * Renders the HQL of the query with the given entity manager, once: the stateless sessions can't render
+         * criteria queries.
+         *
+         * @param em the entity manager rendering the query
+         */
+        @SuppressWarnings("unchecked")
+        void render(EntityManager em) {
+            if (isRendered()) {
+                return;
+            }
+            TypedQuery<R> criteriaQuery = em.createQuery(this.criteriaQuery);
+            QueryImplementor<R> rendered = criteriaQuery.unwrap(QueryImplementor.class);
+            Set<String> explicitParameters = criteriaQuery.getParameters().stream().map(Parameter::getName).collect(Collectors.toSet());
+            Map<String, Object> literals = new HashMap<>();
+            for (String name : rendered.getParameterMetadata().getNamedParameterNames()) {
+                if (!explicitParameters.contains(name)) {
+                    literals.put(name, rendered.getParameterValue(name));
+                }
+            }
+            this.literalValues = literals;
+            this.queryString = rendered.getQueryString();
+        }
+
+        /**
+         * Creates the query on a stateless session from the rendered HQL, then binds the values of the criteria and of
+         * the literals rendered as parameters.
+         *
+         * @param session  the stateless session
+         * @param criteria the criteria, of the same shape as the compiled one
+         * @return the query
+         */
+        Query<R> createQuery(StatelessSession session, Criteria criteria) {
+            Assert.state(isRendered(), "Query must be rendered first!");
+            Query<R> query = session.createQuery(this.queryString, this.criteriaQuery.getResultType());
+            this.specification.bindParameters(query, criteria);
+            this.literalValues.forEach(query::setParameter);
+            return query;
+        }
+    }
+}
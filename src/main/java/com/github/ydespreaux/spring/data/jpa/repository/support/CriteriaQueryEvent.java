@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import com.github.ydespreaux.spring.data.jpa.query.Criteria;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+
+/**
+ * Measures of a criteria query executed by a repository.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@Getter
+@ToString(exclude = "criteria")
+public final class CriteriaQueryEvent {
+
+    /**
+     * Simple name of the repository interface
+     */
+    private final String repository;
+    /**
+     * Repository method: findOne, findAll, findPage, findSlice, findProjections, findProjectionPage, count, exists,
+     * findAllBatch, countBatch, streamAll, scrollAll, scanAll or the asynchronous variants findOneAsync, findAllAsync,
+     * findPageAsync and countAsync
+     */
+    private final String method;
+    /**
+     * Identifier of the shape of the criteria executed, once optimized
+     */
+    private final String shape;
+    @Nullable
+    private final Criteria criteria;
+    /**
+     * Optimization of the criteria, compilation of the query and binding of the values
+     */
+    private final Duration translateTime;
+    /**
+     * Execution of the query and hydration of the results
+     */
+    private final Duration executeTime;
+    /**
+     * Execution of the count query of a page
+     */
+    private final Duration countTime;
+    private final long rows;
+    @Nullable
+    private final Throwable failure;
+
+    public CriteriaQueryEvent(String repository, String method, String shape, @Nullable Criteria criteria,
+                              Duration translateTime, Duration executeTime, Duration countTime, long rows, @Nullable Throwable failure) {
+        this.repository = repository;
+        this.method = method;
+        this.shape = shape;
+        this.criteria = criteria;
+        this.translateTime = translateTime;
+        this.executeTime = executeTime;
+        this.countTime = countTime;
+        this.rows = rows;
+        this.failure = failure;
+    }
+
+    public Duration getTotalTime() {
+        return this.translateTime.plus(this.executeTime).plus(this.countTime);
+    }
+
+    public boolean isFailed() {
+        return this.failure != null;
+    }
+}
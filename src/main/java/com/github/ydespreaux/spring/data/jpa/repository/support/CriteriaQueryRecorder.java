@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import com.github.ydespreaux.spring.data.jpa.query.Criteria;
+import com.github.ydespreaux.spring.data.jpa.query.CriteriaShape;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures the phases of a criteria query executed by a repository method: the translation until
+ * {@link #translated()}, the count queries run through {@link #count(LongSupplier)}, and the execution for the rest
+ * of the time. The query is reported to the metrics of the settings, and logged when slower than the threshold.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+final class CriteriaQueryRecorder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CriteriaQueryRecorder.class);
+
+    static final CriteriaQueryRecorder DISABLED = new CriteriaQueryRecorder(null, null, null, null, null);
+
+    @Nullable
+    private final CriteriaMetrics metrics;
+    @Nullable
+    private final Duration slowQueryThreshold;
+    private final String repository;
+    private final String method;
+    @Nullable
+    private Criteria criteria;
+    private CriteriaShape shape;
+    @Nullable
+    private List<Criteria> batch;
+    private final long start;
+    private long translateNanos;
+    private long countNanos;
+    private long rows;
+    @Nullable
+    private Throwable failure;
+
+    private CriteriaQueryRecorder(@Nullable CriteriaMetrics metrics, @Nullable Duration slowQueryThreshold,
+                                  String repository, String method, @Nullable Criteria criteria) {
+        this.metrics = metrics;
+        this.slowQueryThreshold = slowQueryThreshold;
+        this.repository = repository;
+        this.method = method;
+        this.criteria = criteria;
+        this.shape = CriteriaShape.of(criteria);
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * @param settings
+     * @param repository
+     * @param method
+     * @param criteria
+     * @return a recorder started now, or the disabled recorder without metrics nor slow query threshold
+     */
+    static CriteriaQueryRecorder start(JpaCriteriaSettings settings, String repository, String method, @Nullable Criteria criteria) {
+        if (settings.getMetrics() == CriteriaMetrics.NONE && settings.getSlowQueryThreshold() == null) {
+            return DISABLED;
+        }
+        return new CriteriaQueryRecorder(settings.getMetrics(), settings.getSlowQueryThreshold(), repository, method, criteria);
+    }
+
+    /**
+     * Sets the criteria actually executed, once optimized: the query is reported with its shape.
+     *
+     * @param criteria the optimized criteria
+     */
+    void executed(@Nullable Criteria criteria) {
+        if (this != DISABLED) {
+            this.criteria = criteria;
+            this.shape = CriteriaShape.of(criteria);
+        }
+    }
+
+    /**
+     * Sets the criteria of a batch query, reported instead of the criteria of the recorder.
+     *
+     * @param batch the criteria of the batch
+     */
+    void executed(List<Criteria> batch) {
+        if (this != DISABLED) {
+            this.criteria = null;
+            this.shape = CriteriaShape.ofBatch(batch);
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * Ends the translation phase: the query is compiled and its values bound.
+     */
+    void translated() {
+        if (this != DISABLED && this.translateNanos == 0) {
+            this.translateNanos = System.nanoTime() - this.start;
+        }
+    }
+
+    /**
+     * @param countQuery
+     * @return the result of the count query, whose time is recorded in the count phase
+     */
+    long count(LongSupplier countQuery) {
+        if (this == DISABLED) {
+            return countQuery.getAsLong();
+        }
+        long begin = System.nanoTime();
+        try {
+            return countQuery.getAsLong();
+        } finally {
+            this.countNanos += System.nanoTime() - begin;
+        }
+    }
+
+    void rows(long rows) {
+        this.rows = rows;
+    }
+
+    void row() {
+        this.rows++;
+    }
+
+    void failed(Throwable failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * Reports the query to the metrics and logs it when slower than the threshold.
+     */
+    void stop() {
+        if (this == DISABLED) {
+            return;
+        }
+        long totalNanos = System.nanoTime() - this.start;
+        Duration total = Duration.ofNanos(totalNanos);
+        if (this.slowQueryThreshold != null && total.compareTo(this.slowQueryThreshold) >= 0) {
+            LOGGER.warn("Slow criteria query {}.{} [{} ms, {} rows]: {}", this.repository, this.method, total.toMillis(), this.rows,
+                    this.batch == null ? this.criteria : this.batch);
+        }
+        if (this.metrics != CriteriaMetrics.NONE) {
+            this.metrics.record(new CriteriaQueryEvent(this.repository, this.method, this.shape.getId(), this.criteria,
+                    Duration.ofNanos(this.translateNanos), Duration.ofNanos(totalNanos - this.translateNanos - this.countNanos),
+                    Duration.ofNanos(this.countNanos), this.rows, this.failure));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of the results of the criteria queries of a repository, keyed by the normalized criteria, the sort,
+ * the page and the query options. The results expire after a time to live, and are invalidated by the write
+ * operations of the repository.
+ * <p>
+ * The cached values are shared between the callers: they must be immutable. The repositories store counts and the
+ * identifiers of the entities, never entity instances.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public class CriteriaResultCache {
+
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(1);
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier ticker;
+    private final Map<Object, CachedResult> results;
+    /**
+     * Incremented by each invalidation, so that the results loaded before an invalidation are not cached
+     */
+    private long generation = 0;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * @param maximumSize maximum number of results, 0 to disable the cache
+     * @param timeToLive  time to live of the results
+     */
+    public CriteriaResultCache(int maximumSize, Duration timeToLive) {
+        this(maximumSize, timeToLive, System::nanoTime);
+    }
+
+    CriteriaResultCache(int maximumSize, Duration timeToLive, LongSupplier ticker) {
+        Assert.isTrue(maximumSize >= 0, "Maximum size must not be negative!");
+        Assert.isTrue(timeToLive != null && !timeToLive.isNegative() && !timeToLive.isZero(), "Time to live must be positive!");
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.ticker = ticker;
+        this.results = new LinkedHashMap<Object, CachedResult>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CachedResult> eldest) {
+                if (size() > CriteriaResultCache.this.maximumSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return true if the cache stores results
+     */
+    public boolean isEnabled() {
+        return this.maximumSize > 0;
+    }
+
+    /**
+     * Returns the result cached for the given key, loading it if necessary.
+     *
+     * @param key    the key
+     * @param loader the function executing the query
+     * @param <R>    the result type
+     * @return the result
+     */
+    @SuppressWarnings("unchecked")
+    <R> R get(Object key, Supplier<R> loader) {
+        long generation;
+        synchronized (this.results) {
+            CachedResult cached = this.results.get(key);
+            if (cached != null) {
+                if (this.ticker.getAsLong() - cached.expiration < 0) {
+                    this.hitCount.incrementAndGet();
+                    return (R) cached.value;
+                }
+                this.results.remove(key);
+                this.evictionCount.incrementAndGet();
+            }
+            generation = this.generation;
+        }
+        this.missCount.incrementAndGet();
+        R result = loader.get();
+        if (this.maximumSize > 0) {
+            synchronized (this.results) {
+                if (generation == this.generation) {
+                    this.results.put(key, new CachedResult(result, this.ticker.getAsLong() + this.timeToLiveNanos));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all the results, and prevents the results being loaded from being cached.
+     */
+    public void invalidate() {
+        synchronized (this.results) {
+            this.generation++;
+            this.results.clear();
+        }
+        this.invalidationCount.incrementAndGet();
+    }
+
+    /**
+     * @return the number of cached results, including the expired ones not removed yet
+     */
+    public int size() {
+        synchronized (this.results) {
+            return this.results.size();
+        }
+    }
+
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    public Duration getTimeToLive() {
+        return Duration.ofNanos(this.timeToLiveNanos);
+    }
+
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * @return the number of results removed because the cache was full or because they expired
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    public long getInvalidationCount() {
+        return this.invalidationCount.get();
+    }
+
+    /**
+     * @return the ratio of lookups that found a result, 0 if the cache has not been used
+     */
+    public double getHitRatio() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0d : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CriteriaResultCache[size=%d, maximumSize=%d, hits=%d, misses=%d, evictions=%d, invalidations=%d]",
+                size(), this.maximumSize, getHitCount(), getMissCount(), getEvictionCount(), getInvalidationCount());
+    }
+
+    private static final class CachedResult {
+
+        private final Object value;
+        private final long expiration;
+
+        CachedResult(Object value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+}
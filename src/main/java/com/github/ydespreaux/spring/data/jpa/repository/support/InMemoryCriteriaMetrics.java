@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metrics of the criteria queries kept in memory, for tests and diagnostics: the statistics are aggregated by
+ * repository, method and criteria shape.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public class InMemoryCriteriaMetrics implements CriteriaMetrics {
+
+    private final Map<Key, Statistics> statistics = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(CriteriaQueryEvent event) {
+        this.statistics.computeIfAbsent(new Key(event.getRepository(), event.getMethod(), event.getShape()), key -> new Statistics())
+                .add(event);
+    }
+
+    /**
+     * @param repository simple name of the repository interface
+     * @param method     repository method
+     * @return the statistics of the method, all criteria shapes together
+     */
+    public Statistics getStatistics(String repository, String method) {
+        Statistics result = new Statistics();
+        this.statistics.forEach((key, value) -> {
+            if (key.repository.equals(repository) && key.method.equals(method)) {
+                result.add(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @param repository simple name of the repository interface
+     * @param method     repository method
+     * @param shape      identifier of the criteria shape
+     * @return the statistics of the method for the criteria shape
+     */
+    public Statistics getStatistics(String repository, String method, String shape) {
+        Statistics result = new Statistics();
+        Statistics value = this.statistics.get(new Key(repository, method, shape));
+        if (value != null) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    public void clear() {
+        this.statistics.clear();
+    }
+
+    /**
+     * Statistics of the queries of a repository method. The rows returned are distributed into buckets by order of
+     * magnitude: 0, 1 to 9, 10 to 99... the last bucket counts the queries returning a million rows or more. The statistics returned by
+     * {@link InMemoryCriteriaMetrics} are copies.
+     */
+    @Getter
+    @ToString
+    public static final class Statistics {
+
+        static final int ROWS_BUCKETS = 8;
+
+        private long count;
+        private long failureCount;
+        private Duration translateTime = Duration.ZERO;
+        private Duration executeTime = Duration.ZERO;
+        private Duration countTime = Duration.ZERO;
+        private Duration maxTime = Duration.ZERO;
+        private long rows;
+        private long maxRows;
+        private final long[] rowsDistribution = new long[ROWS_BUCKETS];
+
+        synchronized void add(CriteriaQueryEvent event) {
+            this.count++;
+            if (event.isFailed()) {
+                this.failureCount++;
+            }
+            this.translateTime = this.translateTime.plus(event.getTranslateTime());
+            this.executeTime = this.executeTime.plus(event.getExecuteTime());
+            this.countTime = this.countTime.plus(event.getCountTime());
+            if (event.getTotalTime().compareTo(this.maxTime) > 0) {
+                this.maxTime = event.getTotalTime();
+            }
+            this.rows += event.getRows();
+            this.maxRows = Math.max(this.maxRows, event.getRows());
+            this.rowsDistribution[rowsBucket(event.getRows())]++;
+        }
+
+        synchronized void add(Statistics other) {
+            synchronized (other) {
+                this.count += other.count;
+                this.failureCount += other.failureCount;
+                this.translateTime = this.translateTime.plus(other.translateTime);
+                this.executeTime = this.executeTime.plus(other.executeTime);
+                this.countTime = this.countTime.plus(other.countTime);
+                if (other.maxTime.compareTo(this.maxTime) > 0) {
+                    this.maxTime = other.maxTime;
+                }
+                this.rows += other.rows;
+                this.maxRows = Math.max(this.maxRows, other.maxRows);
+                for (int i = 0; i < ROWS_BUCKETS; i++) {
+                    this.rowsDistribution[i] += other.rowsDistribution[i];
+                }
+            }
+        }
+
+        /**
+         * @param rows
+         * @return 0 for no row, else 1 + the number of digits of rows minus one, at most the last bucket
+         */
+        static int rowsBucket(long rows) {
+            int bucket = 0;
+            for (long bound = 1; rows >= bound && bucket < ROWS_BUCKETS - 1; bound *= 10) {
+                bucket++;
+            }
+            return bucket;
+        }
+
+        public long[] getRowsDistribution() {
+            return this.rowsDistribution.clone();
+        }
+
+        public Duration getTotalTime() {
+            return this.translateTime.plus(this.executeTime).plus(this.countTime);
+        }
+    }
+
+    @EqualsAndHashCode
+    private static final class Key {
+
+        private final String repository;
+        private final String method;
+        private final String shape;
+
+        Key(String repository, String method, String shape) {
+            this.repository = repository;
+            this.method = method;
+            this.shape = shape;
+        }
+    }
+}
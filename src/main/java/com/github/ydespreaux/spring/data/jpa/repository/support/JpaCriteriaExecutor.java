@@ -20,15 +20,23 @@
 
 package com.github.ydespreaux.spring.data.jpa.repository.support;
 
+import com.github.ydespreaux.spring.data.jpa.query.BulkOptions;
 import com.github.ydespreaux.spring.data.jpa.query.Criteria;
+import com.github.ydespreaux.spring.data.jpa.query.KeysetPageable;
+import com.github.ydespreaux.spring.data.jpa.query.KeysetSlice;
 import com.github.ydespreaux.spring.data.jpa.query.QueryOptions;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.lang.Nullable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * *
@@ -117,4 +125,412 @@ public interface JpaCriteriaExecutor<T> {
      * @return
      */
     long count(@Nullable Criteria criteria, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @return
+     * @since 1.2.1
+     */
+    default boolean exists(@Nullable Criteria criteria) {
+        return exists(criteria, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Checks whether an entity matches the criteria. Only the identifier of the first matching row is read,
+     * so the database stops at the first match instead of counting every row.
+     *
+     * @param criteria
+     * @param options
+     * @return
+     * @since 1.2.1
+     */
+    boolean exists(@Nullable Criteria criteria, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @param sort
+     * @return
+     * @since 1.2.1
+     */
+    default List<List<T>> findAllBatch(List<Criteria> criteria, Sort sort) {
+        return findAllBatch(criteria, sort, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Executes several criteria in one query where possible: the criteria without join are merged into a single query
+     * restricted by their disjunction, each row flagged with the criteria it matches, then the rows are split back per
+     * criteria. The other criteria are executed one by one in the same transaction.
+     *
+     * @param criteria
+     * @param sort
+     * @param options
+     * @return the entities matching each criteria, in the order of the criteria
+     * @since 1.2.1
+     */
+    List<List<T>> findAllBatch(List<Criteria> criteria, Sort sort, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @return
+     * @since 1.2.1
+     */
+    default List<Long> countBatch(List<Criteria> criteria) {
+        return countBatch(criteria, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Counts the entities matching several criteria, in one query for the criteria without join (see
+     * {@link #findAllBatch(List, Sort, QueryOptions)}).
+     *
+     * @param criteria
+     * @param options
+     * @return the number of entities matching each criteria, in the order of the criteria
+     * @since 1.2.1
+     */
+    List<Long> countBatch(List<Criteria> criteria, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @param pageable
+     * @return
+     * @since 1.2.1
+     */
+    default Slice<T> findSlice(@Nullable Criteria criteria, Pageable pageable) {
+        return findSlice(criteria, pageable, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Returns a slice of the entities matching the criteria without counting them: one more row than the page size is
+     * read to know whether a next slice exists.
+     *
+     * @param criteria
+     * @param pageable
+     * @param options
+     * @return
+     * @since 1.2.1
+     */
+    Slice<T> findSlice(@Nullable Criteria criteria, Pageable pageable, QueryOptions options);
+
+    /**
+     * Keyset (seek) pagination: returns the slice following the row identified by the continuation token of the request.
+     *
+     * @param criteria
+     * @param pageable
+     * @return
+     * @since 1.2.1
+     */
+    default KeysetSlice<T> findSlice(@Nullable Criteria criteria, KeysetPageable pageable) {
+        return findSlice(criteria, pageable, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Keyset (seek) pagination: returns the slice following the row identified by the continuation token of the request.
+     *
+     * @param criteria
+     * @param pageable
+     * @param options
+     * @return
+     * @since 1.2.1
+     */
+    KeysetSlice<T> findSlice(@Nullable Criteria criteria, KeysetPageable pageable, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @return
+     * @since 1.2.1
+     */
+    default Stream<T> streamAll(@Nullable Criteria criteria) {
+        return streamAll(criteria, Sort.unsorted(), QueryOptions.DEFAULT);
+    }
+
+    /**
+     * @param criteria
+     * @param sort
+     * @return
+     * @since 1.2.1
+     */
+    default Stream<T> streamAll(@Nullable Criteria criteria, Sort sort) {
+        return streamAll(criteria, sort, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Streams the entities matching the criteria from a forward-only cursor. The consumed entities are detached from
+     * the persistence context in batches, so the memory used does not depend on the number of rows.
+     * The stream must be consumed in a surrounding transaction and closed after use.
+     *
+     * @param criteria
+     * @param sort
+     * @param options
+     * @return
+     * @since 1.2.1
+     */
+    Stream<T> streamAll(@Nullable Criteria criteria, Sort sort, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @return
+     * @since 1.2.1
+     */
+    default Stream<T> scrollAll(@Nullable Criteria criteria) {
+        return scrollAll(criteria, Sort.unsorted(), QueryOptions.DEFAULT);
+    }
+
+    /**
+     * @param criteria
+     * @param sort
+     * @return
+     * @since 1.2.1
+     */
+    default Stream<T> scrollAll(@Nullable Criteria criteria, Sort sort) {
+        return scrollAll(criteria, sort, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Scrolls the entities matching the criteria on a Hibernate stateless session: no persistence context, no
+     * snapshot and no lazy loading. The entities are detached, their lazy associations can't be initialized, and the
+     * associations of the options are rejected. The stateless session uses its own connection, outside of the
+     * surrounding transaction, which is only released when the stream is closed: the stream must be closed, e.g. in a
+     * try-with-resources block.
+     *
+     * @param criteria
+     * @param sort
+     * @param options
+     * @return
+     * @since 1.2.1
+     */
+    Stream<T> scrollAll(@Nullable Criteria criteria, Sort sort, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @param sort
+     * @return
+     * @since 1.2.1
+     */
+    default CriteriaCursor<T> openCursor(@Nullable Criteria criteria, Sort sort) {
+        return openCursor(criteria, sort, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Opens a demand-driven cursor on the entities matching the criteria: the batches are read on the executor of the
+     * settings from a {@link #scrollAll(Criteria, Sort, QueryOptions) stateless scroll}. The cursor must be closed
+     * when it isn't read until the end.
+     *
+     * @param criteria
+     * @param sort
+     * @param options
+     * @return
+     * @since 1.2.1
+     */
+    CriteriaCursor<T> openCursor(@Nullable Criteria criteria, Sort sort, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @param property
+     * @param partitions
+     * @param consumer
+     * @return
+     * @since 1.2.1
+     */
+    default CompletableFuture<Long> scanAll(@Nullable Criteria criteria, String property, int partitions, Consumer<? super T> consumer) {
+        return scanAll(criteria, property, partitions, consumer, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Scans the entities matching the criteria in parallel: the range of values of the property (an integral number or
+     * a date, ideally indexed) is split into partitions of the same width, each partition is read on the executor of the
+     * settings with its own entity manager and connection. The consumer is called concurrently by the partitions and
+     * receives detached entities.
+     *
+     * @param criteria
+     * @param property   partitioned property
+     * @param partitions maximum number of partitions
+     * @param consumer   thread-safe consumer of the entities
+     * @param options
+     * @return the number of scanned entities
+     * @since 1.2.1
+     */
+    CompletableFuture<Long> scanAll(@Nullable Criteria criteria, String property, int partitions, Consumer<? super T> consumer, QueryOptions options);
+
+    /**
+     * Finds the projections of the entities matching the criteria. Only the properties of the projection are selected:
+     * the input properties of a closed interface projection, or the constructor parameters of a DTO class.
+     *
+     * @param criteria
+     * @param projection the projection interface or DTO class
+     * @param <P>
+     * @return
+     * @since 1.2.1
+     */
+    default <P> List<P> findAll(@Nullable Criteria criteria, Class<P> projection) {
+        return findAll(criteria, projection, Sort.unsorted(), QueryOptions.DEFAULT);
+    }
+
+    /**
+     * @param criteria
+     * @param projection the projection interface or DTO class
+     * @param sort
+     * @param <P>
+     * @return
+     * @since 1.2.1
+     */
+    default <P> List<P> findAll(@Nullable Criteria criteria, Class<P> projection, Sort sort) {
+        return findAll(criteria, projection, sort, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * @param criteria
+     * @param projection the projection interface or DTO class
+     * @param sort
+     * @param options
+     * @param <P>
+     * @return
+     * @since 1.2.1
+     */
+    <P> List<P> findAll(@Nullable Criteria criteria, Class<P> projection, Sort sort, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @param projection the projection interface or DTO class
+     * @param pageable
+     * @param <P>
+     * @return
+     * @since 1.2.1
+     */
+    default <P> Page<P> findAll(@Nullable Criteria criteria, Class<P> projection, Pageable pageable) {
+        return findAll(criteria, projection, pageable, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * @param criteria
+     * @param projection the projection interface or DTO class
+     * @param pageable
+     * @param options
+     * @param <P>
+     * @return
+     * @since 1.2.1
+     */
+    <P> Page<P> findAll(@Nullable Criteria criteria, Class<P> projection, Pageable pageable, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @param assignments the new values by property
+     * @return the number of updated rows
+     * @since 1.2.1
+     */
+    default int updateAll(@Nullable Criteria criteria, Map<String, ?> assignments) {
+        return updateAll(criteria, assignments, BulkOptions.DEFAULT);
+    }
+
+    /**
+     * Updates the rows matching the criteria with a single update statement, without loading the entities.
+     * Lifecycle callbacks and cascades are not applied.
+     *
+     * @param criteria
+     * @param assignments the new values by property
+     * @param options
+     * @return the number of updated rows
+     * @since 1.2.1
+     */
+    int updateAll(@Nullable Criteria criteria, Map<String, ?> assignments, BulkOptions options);
+
+    /**
+     * @param criteria
+     * @return the number of deleted rows
+     * @since 1.2.1
+     */
+    default int deleteAll(@Nullable Criteria criteria) {
+        return deleteAll(criteria, BulkOptions.DEFAULT);
+    }
+
+    /**
+     * Deletes the rows matching the criteria with a single delete statement, without loading the entities.
+     * Lifecycle callbacks and cascades are not applied.
+     *
+     * @param criteria
+     * @param options
+     * @return the number of deleted rows
+     * @since 1.2.1
+     */
+    int deleteAll(@Nullable Criteria criteria, BulkOptions options);
+
+    /**
+     * @param criteria
+     * @return
+     * @since 1.2.1
+     */
+    default CompletableFuture<Optional<T>> findOneAsync(@Nullable Criteria criteria) {
+        return findOneAsync(criteria, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Asynchronous {@link #findOne(Criteria, QueryOptions)}: the query runs on the executor of the settings, with its own
+     * entity manager in a read-only transaction. The entities are detached once the query completes.
+     *
+     * @param criteria
+     * @param options
+     * @return
+     * @since 1.2.1
+     */
+    CompletableFuture<Optional<T>> findOneAsync(@Nullable Criteria criteria, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @param sort
+     * @return
+     * @since 1.2.1
+     */
+    default CompletableFuture<List<T>> findAllAsync(@Nullable Criteria criteria, Sort sort) {
+        return findAllAsync(criteria, sort, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Asynchronous {@link #findAll(Criteria, Sort, QueryOptions)}, see {@link #findOneAsync(Criteria, QueryOptions)}.
+     *
+     * @param criteria
+     * @param sort
+     * @param options
+     * @return
+     * @since 1.2.1
+     */
+    CompletableFuture<List<T>> findAllAsync(@Nullable Criteria criteria, Sort sort, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @param pageable
+     * @return
+     * @since 1.2.1
+     */
+    default CompletableFuture<Page<T>> findAllAsync(@Nullable Criteria criteria, Pageable pageable) {
+        return findAllAsync(criteria, pageable, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Asynchronous {@link #findAll(Criteria, Pageable, QueryOptions)}, see {@link #findOneAsync(Criteria, QueryOptions)}.
+     *
+     * @param criteria
+     * @param pageable
+     * @param options
+     * @return
+     * @since 1.2.1
+     */
+    CompletableFuture<Page<T>> findAllAsync(@Nullable Criteria criteria, Pageable pageable, QueryOptions options);
+
+    /**
+     * @param criteria
+     * @return
+     * @since 1.2.1
+     */
+    default CompletableFuture<Long> countAsync(@Nullable Criteria criteria) {
+        return countAsync(criteria, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Asynchronous {@link #count(Criteria, QueryOptions)}, see {@link #findOneAsync(Criteria, QueryOptions)}.
+     *
+     * @param criteria
+     * @param options
+     * @return
+     * @since 1.2.1
+     */
+    CompletableFuture<Long> countAsync(@Nullable Criteria criteria, QueryOptions options);
 }
@@ -30,4 +30,15 @@ import org.springframework.data.jpa.repository.support.JpaRepositoryImplementati
  */
 public interface JpaCriteriaRepository<T, K> extends JpaRepositoryImplementation<T, K>, JpaCriteriaExecutor<T> {
 
+    /**
+     * @return the cache of the compiled criteria queries, and its hit / miss statistics
+     * @since 1.2.1
+     */
+    CriteriaQueryCache getQueryCache();
+
+    /**
+     * @return the cache of the query results, and its hit / miss / eviction statistics
+     * @since 1.2.1
+     */
+    CriteriaResultCache getResultCache();
 }
@@ -21,7 +21,9 @@
 package com.github.ydespreaux.spring.data.jpa.repository.support;
 
 import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryImplementation;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.repository.core.RepositoryInformation;
 import org.springframework.data.repository.core.RepositoryMetadata;
 
 import javax.persistence.EntityManager;
@@ -32,8 +34,25 @@ import javax.persistence.EntityManager;
  */
 public class JpaCriteriaRepositoryFactory extends JpaRepositoryFactory {
 
+    private final JpaCriteriaSettings settings;
+
     public JpaCriteriaRepositoryFactory(EntityManager entityManager) {
+        this(entityManager, JpaCriteriaSettings.DEFAULT);
+    }
+
+    public JpaCriteriaRepositoryFactory(EntityManager entityManager, JpaCriteriaSettings settings) {
         super(entityManager);
+        this.settings = settings;
+    }
+
+    @Override
+    protected JpaRepositoryImplementation<?, ?> getTargetRepository(RepositoryInformation information, EntityManager entityManager) {
+        JpaRepositoryImplementation<?, ?> repository = super.getTargetRepository(information, entityManager);
+        if (repository instanceof SimpleJpaCriteriaRepository) {
+            ((SimpleJpaCriteriaRepository<?, ?>) repository).setSettings(this.settings);
+            ((SimpleJpaCriteriaRepository<?, ?>) repository).setRepositoryName(information.getRepositoryInterface().getSimpleName());
+        }
+        return repository;
     }
 
     @Override
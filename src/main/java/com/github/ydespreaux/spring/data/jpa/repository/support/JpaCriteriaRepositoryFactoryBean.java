@@ -41,6 +41,7 @@ import javax.persistence.EntityManager;
 public class JpaCriteriaRepositoryFactoryBean<T extends Repository<S, K>, S, K> extends JpaRepositoryFactoryBean<T, S, K> {
 
     private EntityPathResolver entityPathResolver;
+    private JpaCriteriaSettings settings = JpaCriteriaSettings.DEFAULT;
 
     public JpaCriteriaRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
         super(repositoryInterface);
@@ -48,7 +49,7 @@ public class JpaCriteriaRepositoryFactoryBean<T extends Repository<S, K>, S, K>
 
     @Override
     protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
-        JpaRepositoryFactory jpaRepositoryFactory = new JpaCriteriaRepositoryFactory(entityManager);
+        JpaRepositoryFactory jpaRepositoryFactory = new JpaCriteriaRepositoryFactory(entityManager, this.settings);
         jpaRepositoryFactory.setEntityPathResolver(this.entityPathResolver);
         return jpaRepositoryFactory;
     }
@@ -59,4 +60,9 @@ public class JpaCriteriaRepositoryFactoryBean<T extends Repository<S, K>, S, K>
         this.entityPathResolver = resolver.getIfAvailable(() -> SimpleEntityPathResolver.INSTANCE);
     }
 
+    @Autowired
+    public void setSettings(ObjectProvider<JpaCriteriaSettings> settings) {
+        this.settings = settings.getIfAvailable(() -> JpaCriteriaSettings.DEFAULT);
+    }
+
 }
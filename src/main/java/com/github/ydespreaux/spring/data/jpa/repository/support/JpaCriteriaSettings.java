@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import com.github.ydespreaux.spring.data.jpa.query.StringMatch;
+import lombok.Getter;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+
+/**
+ * Settings shared by the criteria repositories. Declare a bean of this type to override the defaults.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+public class JpaCriteriaSettings {
+
+    /**
+     * Settings of the repositories when no bean is declared, so that they share a single asynchronous executor
+     */
+    static final JpaCriteriaSettings DEFAULT = new JpaCriteriaSettings();
+
+    /**
+     * Maximum number of compiled criteria queries cached by each repository, 0 to disable the cache.
+     */
+    @Getter
+    private int queryCacheSize = CriteriaQueryCache.DEFAULT_MAXIMUM_SIZE;
+
+    /**
+     * Maximum number of query results cached by each repository, 0 to disable the result cache (default).
+     */
+    @Getter
+    private int resultCacheSize = 0;
+    /**
+     * Time to live of the cached query results
+     */
+    @Getter
+    private Duration resultCacheTimeToLive = CriteriaResultCache.DEFAULT_TIME_TO_LIVE;
+
+    /**
+     * Maximum number of values of an IN clause, 0 for no limit. Larger lists are split into several IN clauses joined with OR.
+     */
+    @Getter
+    private int inClauseMaxSize = 0;
+    /**
+     * Pad the values of the IN clauses to the next power of two, to limit the number of distinct statements.
+     */
+    @Getter
+    private boolean inClausePadding = false;
+    /**
+     * Normalize the criteria before their translation (see {@link com.github.ydespreaux.spring.data.jpa.query.CriteriaOptimizer}).
+     * An unsatisfiable criteria returns an empty result without querying the database.
+     */
+    @Getter
+    private boolean criteriaOptimization = true;
+    /**
+     * Default translation of the CONTAINS, STARTS_WITH and ENDS_WITH operators
+     */
+    @Getter
+    private StringMatch stringMatch = StringMatch.UPPER;
+    /**
+     * JDBC fetch size of the streamed queries
+     */
+    @Getter
+    private int streamFetchSize = 100;
+    /**
+     * Number of streamed entities detached from the persistence context at once, 0 to keep them managed
+     */
+    @Getter
+    private int streamDetachSize = 100;
+    /**
+     * Executor of the asynchronous criteria queries, shared by the repositories. Created with the default pool size and
+     * queue capacity on first use, unless set.
+     */
+    private CriteriaAsyncExecutor asyncExecutor;
+    /**
+     * Metrics of the criteria queries
+     */
+    @Getter
+    private CriteriaMetrics metrics = CriteriaMetrics.NONE;
+    /**
+     * Criteria queries slower than this threshold are logged with their criteria, null to disable the log
+     */
+    @Getter
+    private Duration slowQueryThreshold;
+
+    public JpaCriteriaSettings queryCacheSize(int queryCacheSize) {
+        this.queryCacheSize = queryCacheSize;
+        return this;
+    }
+
+    public JpaCriteriaSettings resultCacheSize(int resultCacheSize) {
+        this.resultCacheSize = resultCacheSize;
+        return this;
+    }
+
+    public JpaCriteriaSettings resultCacheTimeToLive(Duration resultCacheTimeToLive) {
+        this.resultCacheTimeToLive = resultCacheTimeToLive;
+        return this;
+    }
+
+    public JpaCriteriaSettings inClauseMaxSize(int inClauseMaxSize) {
+        this.inClauseMaxSize = inClauseMaxSize;
+        return this;
+    }
+
+    public JpaCriteriaSettings inClausePadding(boolean inClausePadding) {
+        this.inClausePadding = inClausePadding;
+        return this;
+    }
+
+    public JpaCriteriaSettings criteriaOptimization(boolean criteriaOptimization) {
+        this.criteriaOptimization = criteriaOptimization;
+        return this;
+    }
+
+    public JpaCriteriaSettings stringMatch(StringMatch stringMatch) {
+        this.stringMatch = stringMatch;
+        return this;
+    }
+
+    public JpaCriteriaSettings streamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+        return this;
+    }
+
+    public JpaCriteriaSettings streamDetachSize(int streamDetachSize) {
+        this.streamDetachSize = streamDetachSize;
+        return this;
+    }
+
+    public JpaCriteriaSettings asyncExecutor(CriteriaAsyncExecutor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+        return this;
+    }
+
+    public JpaCriteriaSettings metrics(CriteriaMetrics metrics) {
+        Assert.notNull(metrics, "Metrics must not be null!");
+        this.metrics = metrics;
+        return this;
+    }
+
+    public JpaCriteriaSettings slowQueryThreshold(Duration slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+        return this;
+    }
+
+    public synchronized CriteriaAsyncExecutor getAsyncExecutor() {
+        if (this.asyncExecutor == null) {
+            this.asyncExecutor = new CriteriaAsyncExecutor();
+        }
+        return this.asyncExecutor;
+    }
+}
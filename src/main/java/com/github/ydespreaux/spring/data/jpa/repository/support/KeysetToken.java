@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+
+/**
+ * Encodes the sort key of the last row of a keyset slice into an opaque continuation token.
+ * Only plain values are written (no serialized objects), and the names of the sort properties are checked on decoding.
+ * The dates are written as ISO-8601 instants, keeping the nanoseconds of the timestamps.
+ *
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+final class KeysetToken {
+
+    private static final String ENCODING = StandardCharsets.UTF_8.name();
+
+    private KeysetToken() {
+    }
+
+    /**
+     * @param properties the sort properties
+     * @param values     the values of the sort properties of the last row
+     * @return the token
+     */
+    static String encode(List<String> properties, List<?> values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < properties.size(); i++) {
+            if (values.get(i) == null) {
+                throw new InvalidDataAccessApiUsageException(String.format("Keyset pagination requires a non null value for the sort property [%s]", properties.get(i)));
+            }
+            if (builder.length() > 0) {
+                builder.append('&');
+            }
+            builder.append(urlEncode(properties.get(i))).append('=').append(urlEncode(toString(values.get(i))));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token      the token
+     * @param properties the sort properties
+     * @return the values of the sort properties, as strings
+     */
+    static List<String> decode(String token, List<String> properties) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataAccessApiUsageException("Invalid continuation token", e);
+        }
+        String[] pairs = decoded.split("&");
+        if (pairs.length != properties.size()) {
+            throw new InvalidDataAccessApiUsageException("Continuation token does not match the sort " + properties);
+        }
+        List<String> values = new ArrayList<>(pairs.length);
+        for (int i = 0; i < pairs.length; i++) {
+            int separator = pairs[i].indexOf('=');
+            if (separator < 0 || !properties.get(i).equals(urlDecode(pairs[i].substring(0, separator)))) {
+                throw new InvalidDataAccessApiUsageException("Continuation token does not match the sort " + properties);
+            }
+            values.add(urlDecode(pairs[i].substring(separator + 1)));
+        }
+        return values;
+    }
+
+    /**
+     * Converts a decoded value to the type of the sort property
+     *
+     * @param value
+     * @param type
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    static Object toValue(String value, Class<?> type) {
+        try {
+            if (type == String.class) {
+                return value;
+            }
+            if (type.isEnum()) {
+                return Enum.valueOf((Class<Enum>) type, value);
+            }
+            if (Date.class.isAssignableFrom(type)) {
+                return toDate(value, type);
+            }
+            if (TemporalAccessor.class.isAssignableFrom(type)) {
+                Method parse = ReflectionUtils.findMethod(type, "parse", CharSequence.class);
+                if (parse != null) {
+                    return parse.invoke(null, value);
+                }
+            }
+            return DefaultConversionService.getSharedInstance().convert(value, type);
+        } catch (Exception e) {
+            throw new InvalidDataAccessApiUsageException(String.format("Invalid continuation token value [%s] for type [%s]", value, type.getName()), e);
+        }
+    }
+
+    /**
+     * A timestamp keeps its nanoseconds, a property declared as {@link Date} is read as a timestamp by the persistence
+     * provider. The tokens written as milliseconds are still accepted.
+     *
+     * @param value an ISO-8601 instant, or a number of milliseconds
+     * @param type  the type of the sort property
+     * @return
+     * @throws ReflectiveOperationException
+     */
+    private static Date toDate(String value, Class<?> type) throws ReflectiveOperationException {
+        if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+            return (Date) type.getConstructor(long.class).newInstance(Long.parseLong(value));
+        }
+        Instant instant = Instant.parse(value);
+        if (type.isAssignableFrom(Timestamp.class)) {
+            return Timestamp.from(instant);
+        }
+        return (Date) type.getConstructor(long.class).newInstance(instant.toEpochMilli());
+    }
+
+    /**
+     * @param value
+     * @return
+     */
+    private static String toString(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toInstant().toString();
+        }
+        if (value instanceof Date) {
+            // java.sql.Date and java.sql.Time don't support toInstant()
+            return Instant.ofEpochMilli(((Date) value).getTime()).toString();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        return value.toString();
+    }
+
+    private static String urlEncode(String value) {
+        try {
+            return URLEncoder.encode(value, ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String urlDecode(String value) {
+        try {
+            return URLDecoder.decode(value, ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -20,30 +20,75 @@
 
 package com.github.ydespreaux.spring.data.jpa.repository.support;
 
+import com.github.ydespreaux.spring.data.jpa.query.BulkOptions;
 import com.github.ydespreaux.spring.data.jpa.query.Criteria;
+import com.github.ydespreaux.spring.data.jpa.query.CriteriaOptimizer;
+import com.github.ydespreaux.spring.data.jpa.query.CriteriaPathCache;
+import com.github.ydespreaux.spring.data.jpa.query.CriteriaShape;
+import com.github.ydespreaux.spring.data.jpa.query.KeysetPageable;
+import com.github.ydespreaux.spring.data.jpa.query.KeysetSlice;
 import com.github.ydespreaux.spring.data.jpa.query.QueryOptions;
 import com.github.ydespreaux.spring.data.jpa.query.SpecificationCriteria;
+import com.github.ydespreaux.spring.data.jpa.query.StringMatch;
+import com.github.ydespreaux.spring.data.jpa.repository.support.CriteriaQueryCache.CompiledQuery;
+import lombok.EqualsAndHashCode;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.resource.transaction.spi.TransactionCoordinatorBuilder;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.support.CrudMethodMetadata;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.mapping.PreferredConstructor;
+import org.springframework.data.mapping.model.PreferredConstructorDiscoverer;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.ProjectionInformation;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.core.support.SurroundingTransactionDetectorMethodInterceptor;
 import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.data.util.DirectFieldAccessFallbackBeanWrapper;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.NumberUtils;
 
 import javax.persistence.*;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
+import javax.persistence.criteria.*;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.SingularAttribute;
+import java.beans.PropertyDescriptor;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
 
@@ -52,9 +97,17 @@ import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
  * @author Yoann Despréaux
  * @since 1.0.0
  */
+@Transactional(readOnly = true)
 public class SimpleJpaCriteriaRepository<T, K extends Serializable> extends SimpleJpaRepository<T, K> implements JpaCriteriaRepository<T, K> {
 
     protected final EntityManager em;
+    private final JpaEntityInformation<T, ?> entityInformation;
+    private JpaCriteriaSettings settings = JpaCriteriaSettings.DEFAULT;
+    private CriteriaQueryCache queryCache = new CriteriaQueryCache();
+    private CriteriaResultCache resultCache = new CriteriaResultCache(0, CriteriaResultCache.DEFAULT_TIME_TO_LIVE);
+    private CriteriaPathCache pathCache = new CriteriaPathCache();
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+    private String repositoryName;
 
     /**
      * @param entityInformation
@@ -63,6 +116,8 @@ public class SimpleJpaCriteriaRepository<T, K extends Serializable> extends Simp
     public SimpleJpaCriteriaRepository(JpaEntityInformation<T, ?> entityInformation, final EntityManager em) {
         super(entityInformation, em);
         this.em = em;
+        this.entityInformation = entityInformation;
+        this.repositoryName = entityInformation.getJavaType().getSimpleName();
     }
 
     /**
@@ -73,109 +128,1483 @@ public class SimpleJpaCriteriaRepository<T, K extends Serializable> extends Simp
         this(JpaEntityInformationSupport.getEntityInformation(domainClass, em), em);
     }
 
+    /**
+     * Apply the settings shared by the criteria repositories.
+     *
+     * @param settings
+     */
+    public void setSettings(JpaCriteriaSettings settings) {
+        Assert.notNull(settings, "Settings must not be null!");
+        this.settings = settings;
+        this.queryCache = new CriteriaQueryCache(settings.getQueryCacheSize());
+        this.resultCache = new CriteriaResultCache(settings.getResultCacheSize(), settings.getResultCacheTimeToLive());
+    }
+
+    /**
+     * @param repositoryName name of the repository in the metrics and the slow query log
+     */
+    public void setRepositoryName(String repositoryName) {
+        Assert.hasText(repositoryName, "Repository name must not be empty!");
+        this.repositoryName = repositoryName;
+    }
+
+    /**
+     * @return the cache of the compiled criteria queries
+     */
+    @Override
+    public CriteriaQueryCache getQueryCache() {
+        return this.queryCache;
+    }
+
+    /**
+     * @return the cache of the query results
+     */
+    @Override
+    public CriteriaResultCache getResultCache() {
+        return this.resultCache;
+    }
+
+    @Override
+    @Transactional
+    public <S extends T> S save(S entity) {
+        this.invalidateResults();
+        return super.save(entity);
+    }
+
+    @Override
+    @Transactional
+    public void delete(T entity) {
+        this.invalidateResults();
+        super.delete(entity);
+    }
+
+    @Override
+    @Transactional
+    public void deleteInBatch(Iterable<T> entities) {
+        this.invalidateResults();
+        super.deleteInBatch(entities);
+    }
+
+    @Override
+    @Transactional
+    public void deleteAllInBatch() {
+        this.invalidateResults();
+        super.deleteAllInBatch();
+    }
+
     /**
      *
      * @param query
      * @return
      */
-    private static long executeCountQuery(TypedQuery<Long> query) {
-        Assert.notNull(query, "TypedQuery must not be null!");
-        List<Long> totals = query.getResultList();
-        long total = 0L;
-
-        Long element;
-        for (Iterator var4 = totals.iterator(); var4.hasNext(); total += element == null ? 0L : element) {
-            element = (Long) var4.next();
+    private static long executeCountQuery(TypedQuery<Long> query) {
+        Assert.notNull(query, "TypedQuery must not be null!");
+        List<Long> totals = query.getResultList();
+        long total = 0L;
+
+        Long element;
+        for (Iterator var4 = totals.iterator(); var4.hasNext(); total += element == null ? 0L : element) {
+            element = (Long) var4.next();
+        }
+
+        return total;
+    }
+
+    /**
+     * @param criteria
+     * @param options
+     * @return
+     */
+    @Override
+    public long count(Criteria criteria, QueryOptions options) {
+        return this.count("count", criteria, options);
+    }
+
+    /**
+     * @param method the method reported to the metrics
+     * @param criteria
+     * @param options
+     * @return
+     */
+    private long count(String method, @Nullable Criteria criteria, QueryOptions options) {
+        return this.record(method, criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return 0L;
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            return this.cachedResult("count", optimizedCriteria, null, options, () -> {
+                TypedQuery<Long> query = this.getCountQuery(optimizedCriteria, this.getDomainClass(), options);
+                recorder.translated();
+                return executeCountQuery(query);
+            });
+        }, Long::longValue);
+    }
+
+    /**
+     * @param criteria
+     * @param options
+     * @return
+     */
+    @Override
+    public boolean exists(Criteria criteria, QueryOptions options) {
+        return this.record("exists", criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return false;
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            return this.cachedResult("exists", optimizedCriteria, null, options, () -> {
+                TypedQuery<?> query = this.getExistsQuery(optimizedCriteria, this.getDomainClass(), options);
+                query.setMaxResults(1);
+                recorder.translated();
+                return !query.getResultList().isEmpty();
+            });
+        }, exists -> exists ? 1L : 0L);
+    }
+
+    /**
+     * @param criteria
+     * @param sort
+     * @param options
+     * @return
+     */
+    @Override
+    public List<List<T>> findAllBatch(List<Criteria> criteria, Sort sort, QueryOptions options) {
+        Assert.notNull(criteria, "Criteria must not be null!");
+        List<List<T>> results = new ArrayList<>(criteria.size());
+        Map<Integer, Criteria> merged = new LinkedHashMap<>();
+        for (int i = 0; i < criteria.size(); i++) {
+            results.add(new ArrayList<>());
+            CriteriaOptimizer.Result optimized = this.optimize(criteria.get(i));
+            if (optimized.isUnsatisfiable()) {
+                continue;
+            }
+            if (this.isBatchMergeable(optimized.getCriteria(), options)) {
+                merged.put(i, optimized.getCriteria());
+            } else {
+                results.set(i, this.findAll(optimized.getCriteria(), sort, options));
+            }
+        }
+        if (merged.size() == 1) {
+            Map.Entry<Integer, Criteria> entry = merged.entrySet().iterator().next();
+            results.set(entry.getKey(), this.findAll(entry.getValue(), sort, options));
+        } else if (!merged.isEmpty()) {
+            List<Integer> indexes = new ArrayList<>(merged.keySet());
+            List<List<T>> batch = this.findAllMerged(new ArrayList<>(merged.values()), sort == null ? Sort.unsorted() : sort, options);
+            for (int i = 0; i < indexes.size(); i++) {
+                results.set(indexes.get(i), batch.get(i));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Executes the mergeable criteria of a batch in a single query, selecting a flag for each criteria.
+     * The result cache stores the identifiers of the entities, see {@link #cachedEntities}.
+     *
+     * @param criteria the mergeable criteria, optimized
+     * @param sort
+     * @param options
+     * @return the entities of each criteria
+     */
+    private List<List<T>> findAllMerged(List<Criteria> criteria, Sort sort, QueryOptions options) {
+        return this.record("findAllBatch", null, recorder -> {
+            recorder.executed(criteria);
+            Supplier<List<List<T>>> loader = () -> {
+                QueryKey key = new QueryKey(QueryType.BATCH_SELECT, this.getDomainClass(), CriteriaShape.ofBatch(criteria), sort, options);
+                CompiledQuery<Object[]> compiledQuery = this.queryCache.get(key, () -> {
+                    CriteriaBuilder builder = this.em.getCriteriaBuilder();
+                    CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+                    Root<T> root = query.from(this.getDomainClass());
+                    List<SpecificationCriteria<T>> specifications = this.getBatchSpecifications(criteria, options);
+                    List<Predicate> predicates = this.getBatchPredicates(specifications, root, builder);
+                    List<Selection<?>> selections = new ArrayList<>(predicates.size() + 1);
+                    selections.add(root);
+                    predicates.forEach(predicate -> selections.add(builder.selectCase().when(predicate, 1).otherwise(0)));
+                    query.multiselect(selections).where(builder.or(predicates.toArray(new Predicate[0])));
+                    query.orderBy(toOrders(sort, root, builder));
+                    return CompiledQuery.ofBatch(query, specifications);
+                });
+                TypedQuery<Object[]> query = this.applyQueryHints(this.applyMetadata(compiledQuery.createQuery(this.em, criteria)), options);
+                recorder.translated();
+                List<List<T>> results = new ArrayList<>(criteria.size());
+                criteria.forEach(ignored -> results.add(new ArrayList<>()));
+                for (Object[] row : query.getResultList()) {
+                    for (int i = 0; i < criteria.size(); i++) {
+                        if (((Number) row[i + 1]).intValue() == 1) {
+                            results.get(i).add(this.getDomainClass().cast(row[0]));
+                        }
+                    }
+                }
+                return results;
+            };
+            if (!this.isResultCacheable()) {
+                return loader.get();
+            }
+            AtomicReference<List<List<T>>> loaded = new AtomicReference<>();
+            List<List<Object>> identifiers = this.resultCache.get(new ResultKey("findAllBatch", null, Arrays.asList(criteria, sort), options), () -> {
+                List<List<T>> results = loader.get();
+                loaded.set(results);
+                return Collections.unmodifiableList(results.stream()
+                        .map(entities -> Collections.unmodifiableList(entities.stream().<Object>map(this.entityInformation::getId).collect(Collectors.toList())))
+                        .collect(Collectors.toList()));
+            });
+            if (loaded.get() != null) {
+                return loaded.get();
+            }
+            Map<Object, T> entities = new HashMap<>();
+            for (T entity : this.loadByIdentifiers(identifiers.stream().flatMap(List::stream).distinct().collect(Collectors.toList()), options)) {
+                entities.put(this.entityInformation.getId(entity), entity);
+            }
+            return identifiers.stream()
+                    .map(ids -> ids.stream().map(entities::get).filter(Objects::nonNull).collect(Collectors.toList()))
+                    .collect(Collectors.toList());
+        }, results -> results.stream().mapToLong(List::size).sum());
+    }
+
+    /**
+     * @param criteria
+     * @param options
+     * @return
+     */
+    @Override
+    public List<Long> countBatch(List<Criteria> criteria, QueryOptions options) {
+        Assert.notNull(criteria, "Criteria must not be null!");
+        List<Long> counts = new ArrayList<>(Collections.nCopies(criteria.size(), 0L));
+        Map<Integer, Criteria> merged = new LinkedHashMap<>();
+        for (int i = 0; i < criteria.size(); i++) {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria.get(i));
+            if (optimized.isUnsatisfiable()) {
+                continue;
+            }
+            if (this.isBatchMergeable(optimized.getCriteria(), options)) {
+                merged.put(i, optimized.getCriteria());
+            } else {
+                counts.set(i, this.count(optimized.getCriteria(), options));
+            }
+        }
+        if (merged.size() == 1) {
+            Map.Entry<Integer, Criteria> entry = merged.entrySet().iterator().next();
+            counts.set(entry.getKey(), this.count(entry.getValue(), options));
+        } else if (!merged.isEmpty()) {
+            List<Integer> indexes = new ArrayList<>(merged.keySet());
+            List<Long> batch = this.countMerged(new ArrayList<>(merged.values()), options);
+            for (int i = 0; i < indexes.size(); i++) {
+                counts.set(indexes.get(i), batch.get(i));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the mergeable criteria of a batch in a single query, summing a flag for each criteria.
+     *
+     * @param criteria the mergeable criteria, optimized
+     * @param options
+     * @return the count of each criteria
+     */
+    private List<Long> countMerged(List<Criteria> criteria, QueryOptions options) {
+        return this.record("countBatch", null, recorder -> this.cachedResult("countBatch", null, criteria, options, () -> {
+            recorder.executed(criteria);
+            QueryKey key = new QueryKey(QueryType.BATCH_COUNT, this.getDomainClass(), CriteriaShape.ofBatch(criteria), null, options);
+            CompiledQuery<Object[]> compiledQuery = this.queryCache.get(key, () -> {
+                CriteriaBuilder builder = this.em.getCriteriaBuilder();
+                CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+                Root<T> root = query.from(this.getDomainClass());
+                List<SpecificationCriteria<T>> specifications = this.getBatchSpecifications(criteria, options);
+                List<Predicate> predicates = this.getBatchPredicates(specifications, root, builder);
+                List<Selection<?>> selections = predicates.stream()
+                        .map(predicate -> builder.sum(builder.<Long>selectCase().when(predicate, 1L).otherwise(0L)))
+                        .collect(Collectors.toList());
+                query.multiselect(selections).where(builder.or(predicates.toArray(new Predicate[0])));
+                return CompiledQuery.ofBatch(query, specifications);
+            });
+            TypedQuery<Object[]> query = this.applyQueryHints(compiledQuery.createQuery(this.em, criteria), options);
+            recorder.translated();
+            Object[] sums = query.getSingleResult();
+            List<Long> counts = new ArrayList<>(criteria.size());
+            for (Object sum : sums) {
+                counts.add(sum == null ? 0L : ((Number) sum).longValue());
+            }
+            return Collections.unmodifiableList(counts);
+        }), counts -> counts.stream().mapToLong(Long::longValue).sum());
+    }
+
+    /**
+     * @param criteria
+     * @param assignments
+     * @param options
+     * @return
+     */
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public int updateAll(Criteria criteria, Map<String, ?> assignments, BulkOptions options) {
+        Assert.notEmpty(assignments, "Assignments must not be empty!");
+        CriteriaOptimizer.Result optimized = this.optimize(criteria);
+        if (optimized.isUnsatisfiable()) {
+            return 0;
+        }
+        Criteria optimizedCriteria = optimized.getCriteria();
+        Class<T> domainClass = this.getDomainClass();
+        CriteriaBuilder builder = this.em.getCriteriaBuilder();
+        CriteriaUpdate<T> update = builder.createCriteriaUpdate(domainClass);
+        Root<T> root = update.from(domainClass);
+        assignments.forEach((property, value) -> {
+            Path<Object> path = getPath(root, property);
+            if (value == null) {
+                update.<Object>set(path, builder.nullLiteral(path.getJavaType()));
+            } else {
+                update.<Object, Object>set(path, convertAssignment(value, path.getJavaType()));
+            }
+        });
+        if (options.isVersionIncrement()) {
+            applyVersionIncrement(update, root, builder);
+        }
+        SpecificationCriteria<T> spec = createSpecification(optimizedCriteria);
+        Predicate predicate = this.getBulkRestriction(spec, update, root, builder);
+        if (predicate != null) {
+            update.where(predicate);
+        }
+        this.invalidateResults();
+        Query query = this.em.createQuery(update);
+        spec.bindParameters(query, optimizedCriteria);
+        int count = query.executeUpdate();
+        if (options.isEvict()) {
+            this.evictManagedEntities(domainClass);
+        }
+        return count;
+    }
+
+    /**
+     * @param criteria
+     * @param options
+     * @return
+     */
+    @Override
+    @Transactional
+    public int deleteAll(Criteria criteria, BulkOptions options) {
+        CriteriaOptimizer.Result optimized = this.optimize(criteria);
+        if (optimized.isUnsatisfiable()) {
+            return 0;
+        }
+        Criteria optimizedCriteria = optimized.getCriteria();
+        Class<T> domainClass = this.getDomainClass();
+        CriteriaBuilder builder = this.em.getCriteriaBuilder();
+        CriteriaDelete<T> delete = builder.createCriteriaDelete(domainClass);
+        Root<T> root = delete.from(domainClass);
+        SpecificationCriteria<T> spec = createSpecification(optimizedCriteria);
+        Predicate predicate = this.getBulkRestriction(spec, delete, root, builder);
+        if (predicate != null) {
+            delete.where(predicate);
+        }
+        this.invalidateResults();
+        Query query = this.em.createQuery(delete);
+        spec.bindParameters(query, optimizedCriteria);
+        int count = query.executeUpdate();
+        if (options.isEvict()) {
+            this.evictManagedEntities(domainClass);
+        }
+        return count;
+    }
+
+    @Override
+    public Optional<T> findOne(Criteria criteria, QueryOptions options) {
+        return this.findOne("findOne", criteria, options);
+    }
+
+    /**
+     * @param method the method reported to the metrics
+     * @param criteria
+     * @param options
+     * @return
+     */
+    private Optional<T> findOne(String method, @Nullable Criteria criteria, QueryOptions options) {
+        return this.record(method, criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return Optional.empty();
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            List<T> result = this.cachedEntities("findOne", optimizedCriteria, null, options, () -> {
+                try {
+                    TypedQuery<T> query = this.getTypedQuery(optimizedCriteria, Sort.unsorted(), options);
+                    recorder.translated();
+                    return Collections.singletonList(query.getSingleResult());
+                } catch (NoResultException var3) {
+                    return Collections.emptyList();
+                }
+            });
+            return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+        }, result -> result.isPresent() ? 1L : 0L);
+    }
+
+    /**
+     * @param criteria
+     * @param options
+     * @return
+     */
+    @Override
+    public List<T> findAll(Criteria criteria, QueryOptions options) {
+        return this.findAll(criteria, (Sort) null, options);
+    }
+
+    /**
+     *
+     * @param criteria
+     * @param sort
+     * @param options
+     * @return
+     */
+    @Override
+    public List<T> findAll(Criteria criteria, Sort sort, QueryOptions options) {
+        return this.findAll("findAll", criteria, sort, options);
+    }
+
+    /**
+     * @param method the method reported to the metrics
+     * @param criteria
+     * @param sort
+     * @param options
+     * @return
+     */
+    private List<T> findAll(String method, @Nullable Criteria criteria, @Nullable Sort sort, QueryOptions options) {
+        return this.record(method, criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return new ArrayList<>();
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            Sort querySort = sort == null ? Sort.unsorted() : sort;
+            return this.cachedEntities("findAll", optimizedCriteria, querySort, options, () -> {
+                TypedQuery<T> query = this.getTypedQuery(optimizedCriteria, querySort, options);
+                recorder.translated();
+                return query.getResultList();
+            });
+        }, List::size);
+    }
+
+    /**
+     * @param criteria
+     * @param pageable
+     * @param options
+     * @return
+     */
+    @Override
+    public Page<T> findAll(Criteria criteria, Pageable pageable, QueryOptions options) {
+        return this.findPage("findPage", criteria, pageable, options);
+    }
+
+    /**
+     * @param method the method reported to the metrics
+     * @param criteria
+     * @param pageable
+     * @param options
+     * @return
+     */
+    private Page<T> findPage(String method, @Nullable Criteria criteria, Pageable pageable, QueryOptions options) {
+        return this.record(method, criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return new PageImpl<>(Collections.emptyList(), pageable, 0);
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            Supplier<Page<T>> loader = () -> {
+                Sort sort = pageable.isPaged() ? pageable.getSort() : Sort.unsorted();
+                if (pageable.isPaged() && this.isReadByIdentifiers(options)) {
+                    List<T> content = this.readByIdentifiers(optimizedCriteria, sort, pageable.getOffset(), pageable.getPageSize(), options);
+                    return PageableExecutionUtils.getPage(content, pageable,
+                            () -> recorder.count(() -> executeCountQuery(this.getCountQuery(optimizedCriteria, this.getDomainClass(), options))));
+                }
+                TypedQuery<T> query = this.getTypedQuery(optimizedCriteria, sort, options);
+                recorder.translated();
+                return pageable.isUnpaged() ? new PageImpl<>(query.getResultList()) : this.readPage(query, this.getDomainClass(), pageable, optimizedCriteria, options, recorder);
+            };
+            if (!this.isResultCacheable()) {
+                return loader.get();
+            }
+            AtomicReference<Page<T>> loaded = new AtomicReference<>();
+            Page<Object> identifiers = this.resultCache.get(new ResultKey("findPage", optimizedCriteria, pageable, options), () -> {
+                Page<T> page = loader.get();
+                loaded.set(page);
+                return page.map(this.entityInformation::getId);
+            });
+            return loaded.get() != null ? loaded.get()
+                    : new PageImpl<>(this.loadByIdentifiers(identifiers.getContent(), options), pageable, identifiers.getTotalElements());
+        }, Page::getNumberOfElements);
+    }
+
+    /**
+     * @param criteria
+     * @param pageable
+     * @param options
+     * @return
+     */
+    @Override
+    public Slice<T> findSlice(Criteria criteria, Pageable pageable, QueryOptions options) {
+        return this.record("findSlice", criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return new SliceImpl<T>(Collections.emptyList(), pageable, false);
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            Sort sort = pageable.isPaged() ? pageable.getSort() : Sort.unsorted();
+            List<T> content;
+            if (pageable.isUnpaged()) {
+                TypedQuery<T> query = this.getTypedQuery(optimizedCriteria, sort, options);
+                recorder.translated();
+                return new SliceImpl<>(query.getResultList());
+            } else if (this.isReadByIdentifiers(options)) {
+                content = this.readByIdentifiers(optimizedCriteria, sort, pageable.getOffset(), pageable.getPageSize() + 1, options);
+            } else {
+                TypedQuery<T> query = this.getTypedQuery(optimizedCriteria, sort, options);
+                query.setFirstResult((int) pageable.getOffset());
+                query.setMaxResults(pageable.getPageSize() + 1);
+                recorder.translated();
+                content = query.getResultList();
+            }
+            boolean hasNext = content.size() > pageable.getPageSize();
+            if (hasNext) {
+                content = new ArrayList<>(content.subList(0, pageable.getPageSize()));
+            }
+            return new SliceImpl<>(content, pageable, hasNext);
+        }, Slice::getNumberOfElements);
+    }
+
+    /**
+     * @param criteria
+     * @param projection
+     * @param sort
+     * @param options
+     * @param <P>
+     * @return
+     */
+    @Override
+    public <P> List<P> findAll(Criteria criteria, Class<P> projection, Sort sort, QueryOptions options) {
+        return this.record("findProjections", criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return new ArrayList<P>();
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            TypedQuery<?> query = this.getProjectionQuery(optimizedCriteria, projection, sort == null ? Sort.unsorted() : sort, options);
+            recorder.translated();
+            return readProjections(query, projection);
+        }, List::size);
+    }
+
+    /**
+     * @param criteria
+     * @param projection
+     * @param pageable
+     * @param options
+     * @param <P>
+     * @return
+     */
+    @Override
+    public <P> Page<P> findAll(Criteria criteria, Class<P> projection, Pageable pageable, QueryOptions options) {
+        return this.record("findProjectionPage", criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return new PageImpl<P>(Collections.emptyList(), pageable, 0);
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            Sort sort = pageable.isPaged() ? pageable.getSort() : Sort.unsorted();
+            TypedQuery<?> query = this.getProjectionQuery(optimizedCriteria, projection, sort, options);
+            if (pageable.isUnpaged()) {
+                recorder.translated();
+                return new PageImpl<>(readProjections(query, projection));
+            }
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+            recorder.translated();
+            return PageableExecutionUtils.getPage(readProjections(query, projection), pageable,
+                    () -> recorder.count(() -> executeCountQuery(this.getCountQuery(optimizedCriteria, this.getDomainClass(), options))));
+        }, Page::getNumberOfElements);
+    }
+
+    /**
+     * @param criteria
+     * @param sort
+     * @param options
+     * @return
+     */
+    @Override
+    public Stream<T> streamAll(Criteria criteria, Sort sort, QueryOptions options) {
+        if (!SurroundingTransactionDetectorMethodInterceptor.INSTANCE.isSurroundingTransactionActive()) {
+            throw new InvalidDataAccessApiUsageException("You're trying to stream criteria results without a surrounding transaction that keeps the connection open so that the Stream can actually be consumed; Make sure the code consuming the stream uses @Transactional or any other way of declaring a (read-only) transaction.");
+        }
+        return this.recordStream("streamAll", criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return Stream.empty();
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            TypedQuery<T> query = this.getTypedQuery(optimizedCriteria, sort == null ? Sort.unsorted() : sort, options);
+            if (options.getFetchSize() == null) {
+                query.setHint(QueryHints.FETCH_SIZE, this.settings.getStreamFetchSize());
+            }
+            recorder.translated();
+            Stream<T> stream = query.getResultStream();
+            int detachSize = this.settings.getStreamDetachSize();
+            if (detachSize <= 0) {
+                return stream;
+            }
+            List<T> consumed = new ArrayList<>(detachSize);
+            return stream.peek(entity -> {
+                if (consumed.size() >= detachSize) {
+                    consumed.forEach(this.em::detach);
+                    consumed.clear();
+                }
+                consumed.add(entity);
+            });
+        });
+    }
+
+    /**
+     * @param criteria
+     * @param sort
+     * @param options
+     * @return
+     */
+    @Override
+    public Stream<T> scrollAll(Criteria criteria, Sort sort, QueryOptions options) {
+        if (!options.getAssociations().isEmpty()) {
+            throw new InvalidDataAccessApiUsageException("The associations of a stateless scroll can't be fetched: " + options.getAssociations());
+        }
+        return this.recordStream("scrollAll", criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return Stream.empty();
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            CompiledQuery<T> compiledQuery = this.getSelectQuery(optimizedCriteria, this.getDomainClass(), sort == null ? Sort.unsorted() : sort, options);
+            SessionFactory sessionFactory = this.em.getEntityManagerFactory().unwrap(SessionFactory.class);
+            if (!compiledQuery.isRendered()) {
+                // the stateless session can't render a criteria query: the entity manager of the transaction renders it,
+                // a temporary session without transaction
+                EntityManager transactionalEntityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(this.em.getEntityManagerFactory());
+                if (transactionalEntityManager != null) {
+                    compiledQuery.render(transactionalEntityManager);
+                } else {
+                    try (Session session = sessionFactory.openSession()) {
+                        compiledQuery.render(session);
+                    }
+                }
+            }
+            StatelessSession statelessSession = sessionFactory.openStatelessSession();
+            try {
+                org.hibernate.query.Query<T> query = this.applyQueryHints(compiledQuery.createQuery(statelessSession, optimizedCriteria), options);
+                if (options.getFetchSize() == null) {
+                    query.setFetchSize(this.settings.getStreamFetchSize());
+                }
+                recorder.translated();
+                return query.stream().onClose(statelessSession::close);
+            } catch (RuntimeException e) {
+                statelessSession.close();
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CriteriaCursor<T> openCursor(Criteria criteria, Sort sort, QueryOptions options) {
+        return new CriteriaCursor<>(() -> this.scrollAll(criteria, sort, options), this.settings.getAsyncExecutor());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Long> scanAll(Criteria criteria, String property, int partitions, Consumer<? super T> consumer, QueryOptions options) {
+        Assert.hasText(property, "Property must not be empty!");
+        Assert.isTrue(partitions > 0, "Partitions must be positive!");
+        Assert.notNull(consumer, "Consumer must not be null!");
+        return this.supplyAsync(repository -> repository.getPartitions(criteria, property, partitions, options)).thenCompose(ranges -> {
+            List<CompletableFuture<Long>> scans = ranges.stream()
+                    .map(range -> this.supplyAsync(repository -> repository.scan(range, property, consumer, options)))
+                    .collect(Collectors.toList());
+            return CompletableFuture.allOf(scans.toArray(new CompletableFuture<?>[0]))
+                    .thenApply(ignored -> scans.stream().mapToLong(CompletableFuture::join).sum());
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Optional<T>> findOneAsync(Criteria criteria, QueryOptions options) {
+        return this.supplyAsync(repository -> repository.findOne("findOneAsync", criteria, options));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<List<T>> findAllAsync(Criteria criteria, Sort sort, QueryOptions options) {
+        return this.supplyAsync(repository -> repository.findAll("findAllAsync", criteria, sort, options));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Page<T>> findAllAsync(Criteria criteria, Pageable pageable, QueryOptions options) {
+        return this.supplyAsync(repository -> repository.findPage("findPageAsync", criteria, pageable, options));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Long> countAsync(Criteria criteria, QueryOptions options) {
+        return this.supplyAsync(repository -> repository.count("countAsync", criteria, options));
+    }
+
+    /**
+     * @param criteria
+     * @param property
+     * @param partitions
+     * @param options
+     * @return the criteria of the partitions, empty when no entity matches the criteria
+     */
+    private List<Criteria> getPartitions(@Nullable Criteria criteria, String property, int partitions, QueryOptions options) {
+        return this.record("scanAllPartitions", criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return Collections.<Criteria>emptyList();
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            CriteriaBuilder builder = this.em.getCriteriaBuilder();
+            CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+            SpecificationCriteria<T> spec = createSpecification(optimizedCriteria, options);
+            Root<T> root = this.applySpecification(spec, this.getDomainClass(), query);
+            Path<?> path = root;
+            for (String name : property.split("\\.")) {
+                path = path.get(name);
+            }
+            query.multiselect(bounds(builder, path));
+            TypedQuery<Object[]> boundsQuery = this.applyQueryHints(new CompiledQuery<>(query, spec).createQuery(this.em, optimizedCriteria), options);
+            recorder.translated();
+            Object[] bounds = boundsQuery.getSingleResult();
+            if (bounds[0] == null) {
+                return Collections.<Criteria>emptyList();
+            }
+            return CriteriaPartitions.split(optimizedCriteria, property, (Comparable<?>) bounds[0], (Comparable<?>) bounds[1], partitions);
+        }, List::size);
+    }
+
+    /**
+     * The type of the partitioned property is only known at runtime: it is compared as a raw comparable.
+     *
+     * @param builder
+     * @param path
+     * @return the least and the greatest values of the property
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Selection<?>[] bounds(CriteriaBuilder builder, Path<?> path) {
+        Expression<Comparable> expression = (Expression<Comparable>) path;
+        return new Selection<?>[]{builder.least(expression), builder.greatest(expression)};
+    }
+
+    /**
+     * Reads a partition ordered by the partitioned property, the persistence context is cleared every
+     * {@link JpaCriteriaSettings#getStreamDetachSize()} entities.
+     *
+     * @param range
+     * @param property
+     * @param consumer
+     * @param options
+     * @return the number of entities of the partition
+     */
+    private long scan(Criteria range, String property, Consumer<? super T> consumer, QueryOptions options) {
+        return this.record("scanAll", range, recorder -> {
+            TypedQuery<T> query = this.getTypedQuery(range, Sort.by(property), options);
+            if (options.getFetchSize() == null) {
+                query.setHint(QueryHints.FETCH_SIZE, this.settings.getStreamFetchSize());
+            }
+            recorder.translated();
+            int detachSize = this.settings.getStreamDetachSize();
+            long count = 0;
+            try (Stream<T> stream = query.getResultStream()) {
+                for (Iterator<T> iterator = stream.iterator(); iterator.hasNext(); ) {
+                    consumer.accept(iterator.next());
+                    count++;
+                    if (detachSize > 0 && count % detachSize == 0) {
+                        this.em.clear();
+                    }
+                }
+            }
+            this.em.clear();
+            return count;
+        }, Long::longValue);
+    }
+
+    /**
+     * A criteria can be merged into a batch query when it doesn't join any association: a join of one criteria would
+     * restrict or multiply the rows of the others.
+     *
+     * @param criteria
+     * @param options
+     * @return
+     */
+    private boolean isBatchMergeable(@Nullable Criteria criteria, QueryOptions options) {
+        return !options.hasAssocations() && !options.isDistinct()
+                && !this.createSpecification(criteria).hasJoins(this.em.getMetamodel().managedType(this.getDomainClass()));
+    }
+
+    /**
+     * Parameterized specifications of the criteria of a batch query, each with its own parameter names.
+     *
+     * @param criteria
+     * @param options
+     * @return
+     */
+    private List<SpecificationCriteria<T>> getBatchSpecifications(List<Criteria> criteria, QueryOptions options) {
+        List<SpecificationCriteria<T>> specifications = new ArrayList<>(criteria.size());
+        for (int i = 0; i < criteria.size(); i++) {
+            specifications.add(this.<T>createSpecification(criteria.get(i), options).parameterPrefix("batch" + i + "_"));
+        }
+        return specifications;
+    }
+
+    /**
+     * @param specifications
+     * @param root
+     * @param builder
+     * @return the predicates of the criteria of a batch query
+     */
+    private List<Predicate> getBatchPredicates(List<SpecificationCriteria<T>> specifications, Root<T> root, CriteriaBuilder builder) {
+        List<Predicate> predicates = new ArrayList<>(specifications.size());
+        for (SpecificationCriteria<T> specification : specifications) {
+            Predicate predicate = specification.toPredicate(root, builder);
+            predicates.add(predicate == null ? builder.conjunction() : predicate);
+        }
+        return predicates;
+    }
+
+
+    /**
+     * Executes the query on the executor of the settings. A query rejected by the executor completes the future
+     * exceptionally instead of blocking the caller.
+     *
+     * @param query
+     * @param <R>
+     * @return
+     */
+    private <R> CompletableFuture<R> supplyAsync(Function<SimpleJpaCriteriaRepository<T, K>, R> query) {
+        if (this.isJta()) {
+            CompletableFuture<R> future = new CompletableFuture<>();
+            future.completeExceptionally(new InvalidDataAccessApiUsageException("Asynchronous criteria queries require a resource-local entity manager factory, JTA transactions are not supported"));
+            return future;
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> this.executeReadOnly(query), this.settings.getAsyncExecutor());
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<R> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * @return true if the entity manager factory joins JTA transactions
+     */
+    private boolean isJta() {
+        return this.em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(TransactionCoordinatorBuilder.class).isJta();
+    }
+
+    /**
+     * Executes the query with a new entity manager in a read-only transaction, the shared entity manager is bound to
+     * the calling thread. The transaction is a resource-local transaction of the entity manager: the entity manager
+     * factory must not be configured for JTA.
+     *
+     * @param query
+     * @param <R>
+     * @return
+     */
+    private <R> R executeReadOnly(Function<SimpleJpaCriteriaRepository<T, K>, R> query) {
+        EntityManager entityManager = this.em.getEntityManagerFactory().createEntityManager();
+        try {
+            Session session = entityManager.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            EntityTransaction transaction = entityManager.getTransaction();
+            transaction.begin();
+            try {
+                return query.apply(this.withEntityManager(entityManager));
+            } finally {
+                transaction.rollback();
+            }
+        } catch (RuntimeException e) {
+            RuntimeException translated = EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+            throw translated == null ? e : translated;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * @param entityManager
+     * @return a repository sharing the settings and the caches of this repository
+     */
+    private SimpleJpaCriteriaRepository<T, K> withEntityManager(EntityManager entityManager) {
+        SimpleJpaCriteriaRepository<T, K> repository = new SimpleJpaCriteriaRepository<>(this.entityInformation, entityManager);
+        repository.settings = this.settings;
+        repository.queryCache = this.queryCache;
+        repository.resultCache = this.resultCache;
+        repository.pathCache = this.pathCache;
+        repository.repositoryName = this.repositoryName;
+        return repository;
+    }
+
+    @Override
+    public KeysetSlice<T> findSlice(Criteria criteria, KeysetPageable pageable, QueryOptions options) {
+        return this.record("findSlice", criteria, recorder -> {
+            CriteriaOptimizer.Result optimized = this.optimize(criteria, recorder);
+            if (optimized.isUnsatisfiable()) {
+                return new KeysetSlice<T>(Collections.emptyList(), pageable, false, pageable.getContinuationToken());
+            }
+            Criteria optimizedCriteria = optimized.getCriteria();
+            Sort sort = withIdentifierTiebreaker(pageable.getSort());
+            List<String> properties = sort.stream().map(Sort.Order::getProperty).collect(Collectors.toList());
+            List<String> lastKey = pageable.isFirst() ? null : KeysetToken.decode(pageable.getContinuationToken(), properties);
+            TypedQuery<T> query = this.getKeysetQuery(optimizedCriteria, this.getDomainClass(), sort, lastKey, options);
+            query.setMaxResults(pageable.getSize() + 1);
+            recorder.translated();
+            List<T> content = query.getResultList();
+            boolean hasNext = content.size() > pageable.getSize();
+            if (hasNext) {
+                content = new ArrayList<>(content.subList(0, pageable.getSize()));
+            }
+            String continuationToken = pageable.getContinuationToken();
+            if (!content.isEmpty()) {
+                DirectFieldAccessFallbackBeanWrapper lastRow = new DirectFieldAccessFallbackBeanWrapper(content.get(content.size() - 1));
+                continuationToken = KeysetToken.encode(properties, properties.stream().map(lastRow::getPropertyValue).collect(Collectors.toList()));
+            }
+            return new KeysetSlice<>(content, pageable, hasNext, continuationToken);
+        }, Slice::getNumberOfElements);
+    }
+
+    /**
+     * Appends the identifier to the sort, to make the sort key unique.
+     *
+     * @param sort
+     * @return
+     */
+    private Sort withIdentifierTiebreaker(Sort sort) {
+        if (sort.stream().anyMatch(Sort.Order::isIgnoreCase)) {
+            throw new InvalidDataAccessApiUsageException("Keyset pagination does not support sort orders ignoring case");
+        }
+        Sort uniqueSort = sort;
+        for (String idAttribute : this.entityInformation.getIdAttributeNames()) {
+            if (sort.getOrderFor(idAttribute) == null) {
+                uniqueSort = uniqueSort.and(Sort.by(Sort.Direction.ASC, idAttribute));
+            }
+        }
+        return uniqueSort;
+    }
+
+    /**
+     * @param criteria
+     * @param sort
+     * @param options
+     * @return
+     */
+    private TypedQuery<T> getTypedQuery(@Nullable Criteria criteria, Sort sort, QueryOptions options) {
+        return this.getTypedQuery(criteria, getDomainClass(), sort, options);
+    }
+
+    /**
+     * @param criteria
+     * @param domainClass
+     * @param sort
+     * @param options
+     * @return
+     */
+    private <S extends T> TypedQuery<S> getTypedQuery(@Nullable Criteria criteria, Class<S> domainClass, Sort sort, QueryOptions options) {
+        CompiledQuery<S> compiledQuery = this.getSelectQuery(criteria, domainClass, sort, options);
+        TypedQuery<S> query = this.applyQueryHints(this.applyMetadata(compiledQuery.createQuery(this.em, criteria)), options);
+        if (options.hasAssocations()) {
+            query.setHint(QueryHints.LOADGRAPH, applyFetchAssociations(domainClass, options.getAssociations()));
         }
+        return query;
 
-        return total;
     }
 
     /**
      * @param criteria
-     * @return
+     * @param domainClass
+     * @param sort
+     * @param options
+     * @param <S>
+     * @return the compiled query selecting the entities
      */
-    @Override
-    public long count(Criteria criteria, QueryOptions options) {
-        return executeCountQuery(this.getCountQuery(new SpecificationCriteria<>(criteria), this.getDomainClass(), options));
+    private <S extends T> CompiledQuery<S> getSelectQuery(@Nullable Criteria criteria, Class<S> domainClass, Sort sort, QueryOptions options) {
+        QueryKey key = new QueryKey(QueryType.SELECT, domainClass, CriteriaShape.of(criteria), sort, options);
+        return this.queryCache.get(key, () -> {
+            CriteriaBuilder builder = em.getCriteriaBuilder();
+            CriteriaQuery<S> criteriaQuery = builder.createQuery(domainClass);
+            SpecificationCriteria<S> spec = createSpecification(criteria, options);
+            Root<S> root = applySpecification(spec, domainClass, criteriaQuery);
+            criteriaQuery.select(root);
+            if (options.isDistinct()) {
+                criteriaQuery.distinct(true);
+            }
+            if (sort != null) {
+                criteriaQuery.orderBy(toOrders(sort, root, builder));
+            }
+            return new CompiledQuery<>(criteriaQuery, spec);
+        });
     }
 
-    @Override
-    public Optional<T> findOne(Criteria criteria, QueryOptions options) {
-        try {
-            TypedQuery<T> query = this.getTypedQuery(new SpecificationCriteria<>(criteria), Sort.unsorted(), options);
-            return Optional.of(query.getSingleResult());
-        } catch (NoResultException var3) {
-            return Optional.empty();
+    /**
+     * A paged query fetching a collection cannot be limited by the database: Hibernate would read every joined row and
+     * paginate in memory. Such queries read the identifiers of the page first, then fetch the entities of these identifiers.
+     *
+     * @param options
+     * @return true if the associations of the options contain a collection
+     */
+    private boolean isReadByIdentifiers(QueryOptions options) {
+        if (!options.hasAssocations() || this.entityInformation.hasCompositeId() || this.entityInformation.getIdAttribute() == null) {
+            return false;
+        }
+        Metamodel metamodel = this.em.getMetamodel();
+        for (String association : options.getAssociations()) {
+            ManagedType<?> type = metamodel.managedType(getDomainClass());
+            for (String property : association.split("\\.")) {
+                Attribute<?, ?> attribute = type.getAttribute(property);
+                if (attribute.isCollection()) {
+                    return true;
+                }
+                if (!attribute.isAssociation() && attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.EMBEDDED) {
+                    break;
+                }
+                type = metamodel.managedType(attribute.getJavaType());
+            }
         }
+        return false;
     }
 
     /**
+     * Reads a page in two queries: the identifiers of the page, limited by the database, then the entities and
+     * their associations restricted to these identifiers. The entities are returned in the order of the first query.
+     *
      * @param criteria
+     * @param sort
+     * @param offset
+     * @param limit
+     * @param options
      * @return
      */
-    @Override
-    public List<T> findAll(Criteria criteria, QueryOptions options) {
-        return this.findAll(criteria, (Sort) null, options);
+    private List<T> readByIdentifiers(@Nullable Criteria criteria, Sort sort, long offset, int limit, QueryOptions options) {
+        Class<T> domainClass = getDomainClass();
+        String idAttribute = this.entityInformation.getIdAttribute().getName();
+        QueryKey key = new QueryKey(QueryType.IDENTIFIERS, domainClass, CriteriaShape.of(criteria), sort, options);
+        CompiledQuery<Tuple> identifiersQuery = this.queryCache.get(key, () -> {
+            CriteriaBuilder builder = em.getCriteriaBuilder();
+            CriteriaQuery<Tuple> criteriaQuery = builder.createTupleQuery();
+            SpecificationCriteria<T> spec = createSpecification(criteria, options);
+            Root<T> root = applySpecification(spec, domainClass, criteriaQuery);
+            List<Order> orders = toOrders(sort, root, builder);
+            // the sort expressions are selected, so that a distinct query can be ordered by them
+            List<Selection<?>> selections = new ArrayList<>();
+            selections.add(root.get(idAttribute));
+            orders.forEach(order -> selections.add(order.getExpression()));
+            criteriaQuery.multiselect(selections);
+            if (options.isDistinct()) {
+                criteriaQuery.distinct(true);
+            }
+            criteriaQuery.orderBy(orders);
+            return new CompiledQuery<>(criteriaQuery, spec);
+        });
+        TypedQuery<Tuple> query = this.applyQueryHints(identifiersQuery.createQuery(this.em, criteria), options);
+        query.setFirstResult((int) offset);
+        query.setMaxResults(limit);
+        List<Object> identifiers = query.getResultList().stream().map(tuple -> tuple.get(0)).collect(Collectors.toList());
+        return this.loadByIdentifiers(identifiers, options);
+    }
+
+    /**
+     * Loads the entities of the given identifiers in the persistence context of the repository, in chunks of
+     * {@link JpaCriteriaSettings#getInClauseMaxSize()} identifiers.
+     *
+     * @param identifiers the identifiers
+     * @param options     the query options
+     * @return the entities, in the order of the identifiers. The entities which no longer exist are skipped.
+     */
+    private List<T> loadByIdentifiers(List<?> identifiers, QueryOptions options) {
+        if (identifiers.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Class<T> domainClass = getDomainClass();
+        String idAttribute = this.entityInformation.getIdAttribute().getName();
+        QueryKey fetchKey = new QueryKey(QueryType.FETCH_BY_IDENTIFIERS, domainClass, CriteriaShape.of(null), Sort.unsorted(), QueryOptions.DEFAULT);
+        CompiledQuery<T> fetchQuery = this.queryCache.get(fetchKey, () -> {
+            CriteriaBuilder builder = em.getCriteriaBuilder();
+            CriteriaQuery<T> criteriaQuery = builder.createQuery(domainClass);
+            Root<T> root = criteriaQuery.from(domainClass);
+            @SuppressWarnings("unchecked") // the identifiers are bound as a collection of any type
+            Class<Collection<?>> collectionType = (Class<Collection<?>>) (Class<?>) Collection.class;
+            ParameterExpression<Collection<?>> parameter = builder.parameter(collectionType);
+            criteriaQuery.select(root).where(root.get(idAttribute).in(parameter));
+            return new CompiledQuery<>(criteriaQuery, createSpecification(null), Collections.singletonList(parameter));
+        });
+        int chunkSize = this.settings.getInClauseMaxSize() > 0 ? this.settings.getInClauseMaxSize() : identifiers.size();
+        Map<Object, T> entities = new HashMap<>();
+        for (int from = 0; from < identifiers.size(); from += chunkSize) {
+            List<?> chunk = identifiers.subList(from, Math.min(from + chunkSize, identifiers.size()));
+            TypedQuery<T> entitiesQuery = this.applyQueryHints(this.applyMetadata(fetchQuery.createQuery(this.em, null, Collections.singletonList(chunk))), options);
+            entitiesQuery.setHint(QueryHints.LOADGRAPH, applyFetchAssociations(domainClass, options.getAssociations()));
+            for (T entity : entitiesQuery.getResultList()) {
+                entities.put(this.entityInformation.getId(entity), entity);
+            }
+        }
+        return identifiers.stream().map(entities::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     /**
+     * Query selecting the properties of a projection: a constructor expression for a DTO class,
+     * a tuple of aliased properties for an interface.
      *
      * @param criteria
+     * @param projection
      * @param sort
+     * @param options
      * @return
      */
-    @Override
-    public List<T> findAll(Criteria criteria, Sort sort, QueryOptions options) {
-        TypedQuery<T> query = this.getTypedQuery(new SpecificationCriteria<>(criteria), sort == null ? Sort.unsorted() : sort, options);
-        return query.getResultList();
+    @SuppressWarnings("unchecked") // the query selects tuples or instances of the projection class, read as objects
+    private TypedQuery<?> getProjectionQuery(@Nullable Criteria criteria, Class<?> projection, Sort sort, QueryOptions options) {
+        Class<T> domainClass = getDomainClass();
+        QueryKey key = new QueryKey(QueryType.PROJECTION, domainClass, projection, CriteriaShape.of(criteria), sort, options);
+        CompiledQuery<?> compiledQuery = this.queryCache.get(key, () -> {
+            CriteriaBuilder builder = em.getCriteriaBuilder();
+            CriteriaQuery<Object> criteriaQuery = builder.createQuery((Class<Object>) (projection.isInterface() ? Tuple.class : projection));
+            SpecificationCriteria<T> spec = createSpecification(criteria, options);
+            Root<T> root = applySpecification(spec, domainClass, criteriaQuery);
+            List<Selection<?>> selections = new ArrayList<>();
+            for (String property : getProjectionProperties(projection)) {
+                selections.add(root.get(property).alias(property));
+            }
+            if (projection.isInterface()) {
+                criteriaQuery.multiselect(selections);
+            } else {
+                criteriaQuery.select(builder.construct((Class<Object>) projection, selections.toArray(new Selection<?>[0])));
+            }
+            if (options.isDistinct()) {
+                criteriaQuery.distinct(true);
+            }
+            criteriaQuery.orderBy(toOrders(sort, root, builder));
+            return new CompiledQuery<>(criteriaQuery, spec);
+        });
+        return this.applyQueryHints(this.applyMetadata(compiledQuery.createQuery(this.em, criteria)), options);
     }
 
     /**
-     * @param criteria
-     * @param pageable
+     * Properties selected for a projection: the input properties of a closed interface projection,
+     * or the constructor parameters of a DTO class.
+     *
+     * @param projection
      * @return
      */
-    @Override
-    public Page<T> findAll(Criteria criteria, Pageable pageable, QueryOptions options) {
-        Specification<T> specification = new SpecificationCriteria<>(criteria);
-        Sort sort = pageable.isPaged() ? pageable.getSort() : Sort.unsorted();
-        TypedQuery<T> query = this.getTypedQuery(specification, sort, options);
-        return (Page) (pageable.isUnpaged() ? new PageImpl(query.getResultList()) : this.readPage(query, this.getDomainClass(), pageable, specification, options));
+    private List<String> getProjectionProperties(Class<?> projection) {
+        List<String> properties = new ArrayList<>();
+        if (projection.isInterface()) {
+            ProjectionInformation information = this.projectionFactory.getProjectionInformation(projection);
+            if (!information.isClosed()) {
+                throw new InvalidDataAccessApiUsageException(String.format("Projection [%s] must be a closed projection", projection.getName()));
+            }
+            for (PropertyDescriptor descriptor : information.getInputProperties()) {
+                properties.add(descriptor.getName());
+            }
+            return properties;
+        }
+        PreferredConstructor<?, ?> constructor = PreferredConstructorDiscoverer.discover(projection);
+        if (constructor == null || !constructor.hasParameters()) {
+            throw new InvalidDataAccessApiUsageException(String.format("Projection [%s] must declare a constructor with the selected properties", projection.getName()));
+        }
+        for (PreferredConstructor.Parameter<?, ?> parameter : constructor.getParameters()) {
+            if (parameter.getName() == null) {
+                throw new InvalidDataAccessApiUsageException(String.format("Parameter names of [%s] are not available, compile with -parameters", projection.getName()));
+            }
+            properties.add(parameter.getName());
+        }
+        return properties;
     }
 
     /**
-     * @param spec
-     * @param sort
+     * @param query
+     * @param projection
+     * @param <P>
      * @return
      */
-    private TypedQuery<T> getTypedQuery(Specification<T> spec, Sort sort, QueryOptions options) {
-        return this.getTypedQuery(spec, getDomainClass(), sort, options);
+    @SuppressWarnings("unchecked")
+    private <P> List<P> readProjections(TypedQuery<?> query, Class<P> projection) {
+        List<?> results = query.getResultList();
+        if (!projection.isInterface()) {
+            return (List<P>) results;
+        }
+        List<P> projections = new ArrayList<>(results.size());
+        for (Object result : results) {
+            Tuple tuple = (Tuple) result;
+            Map<String, Object> values = new HashMap<>();
+            for (TupleElement<?> element : tuple.getElements()) {
+                values.put(element.getAlias(), tuple.get(element));
+            }
+            projections.add(this.projectionFactory.createProjection(projection, values));
+        }
+        return projections;
     }
 
     /**
-     * @param spec
+     * Query of a keyset slice: the criteria restricted to the rows whose sort key follows the last key.
+     *
+     * @param criteria
      * @param domainClass
      * @param sort
+     * @param lastKey     the values of the sort key of the last row of the previous slice, null for the first slice
+     * @param options
+     * @param <S>
      * @return
      */
-    private <S extends T> TypedQuery<S> getTypedQuery(Specification<S> spec, Class<S> domainClass, Sort sort, QueryOptions options) {
-        CriteriaBuilder builder = em.getCriteriaBuilder();
-        CriteriaQuery<S> criteriaQuery = builder.createQuery(domainClass);
-        Root<S> root = applySpecification(spec, domainClass, criteriaQuery);
-        criteriaQuery.select(root);
-        if (options.isDistinct()) {
-            criteriaQuery.distinct(true);
-        }
-        if (sort != null) {
-            criteriaQuery.orderBy(toOrders(sort, root, builder));
+    private <S extends T> TypedQuery<S> getKeysetQuery(@Nullable Criteria criteria, Class<S> domainClass, Sort sort, @Nullable List<String> lastKey, QueryOptions options) {
+        QueryType type = lastKey == null ? QueryType.SELECT : QueryType.KEYSET;
+        QueryKey key = new QueryKey(type, domainClass, CriteriaShape.of(criteria), sort, options);
+        CompiledQuery<S> compiledQuery = this.queryCache.get(key, () -> {
+            CriteriaBuilder builder = em.getCriteriaBuilder();
+            CriteriaQuery<S> criteriaQuery = builder.createQuery(domainClass);
+            SpecificationCriteria<S> spec = createSpecification(criteria, options);
+            Root<S> root = applySpecification(spec, domainClass, criteriaQuery);
+            criteriaQuery.select(root);
+            if (options.isDistinct()) {
+                criteriaQuery.distinct(true);
+            }
+            List<Order> orders = toOrders(sort, root, builder);
+            criteriaQuery.orderBy(orders);
+            List<ParameterExpression<?>> parameters = new ArrayList<>(orders.size());
+            if (type == QueryType.KEYSET) {
+                Predicate keysetPredicate = keysetPredicate(builder, orders, parameters);
+                Predicate restriction = criteriaQuery.getRestriction();
+                criteriaQuery.where(restriction == null ? keysetPredicate : builder.and(restriction, keysetPredicate));
+            }
+            return new CompiledQuery<>(criteriaQuery, spec, parameters);
+        });
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; lastKey != null && i < lastKey.size(); i++) {
+            values.add(KeysetToken.toValue(lastKey.get(i), compiledQuery.getParameters().get(i).getParameterType()));
         }
-        TypedQuery<S> query = this.applyMetadata(this.em.createQuery(criteriaQuery));
+        TypedQuery<S> query = this.applyQueryHints(this.applyMetadata(compiledQuery.createQuery(this.em, criteria, values)), options);
         if (options.hasAssocations()) {
             query.setHint(QueryHints.LOADGRAPH, applyFetchAssociations(domainClass, options.getAssociations()));
         }
         return query;
+    }
+
+    /**
+     * Creates the predicate selecting the rows after the last key:
+     * {@code k1 >= v1 AND (k1 > v1 OR (k1 = v1 AND k2 > v2) OR ...)}.
+     * The leading {@code k1 >= v1} lets the database seek an index on the first sort property.
+     *
+     * @param builder
+     * @param orders     the orders of the sort
+     * @param parameters the list receiving the parameters of the last key
+     * @return
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"}) // the sort properties are only known at runtime: compared as raw comparables
+    private Predicate keysetPredicate(CriteriaBuilder builder, List<Order> orders, List<ParameterExpression<?>> parameters) {
+        List<Predicate> restrictions = new ArrayList<>(orders.size());
+        List<Predicate> equalities = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            Expression<Comparable> expression = (Expression<Comparable>) order.getExpression();
+            ParameterExpression<Comparable> parameter = builder.parameter((Class<Comparable>) ClassUtils.resolvePrimitiveIfNecessary(expression.getJavaType()));
+            parameters.add(parameter);
+            Predicate after = order.isAscending() ? builder.greaterThan(expression, parameter) : builder.lessThan(expression, parameter);
+            if (equalities.isEmpty()) {
+                restrictions.add(after);
+            } else {
+                List<Predicate> conjunction = new ArrayList<>(equalities);
+                conjunction.add(after);
+                restrictions.add(builder.and(conjunction.toArray(new Predicate[0])));
+            }
+            equalities.add(builder.equal(expression, parameter));
+        }
+        Expression<Comparable> first = (Expression<Comparable>) orders.get(0).getExpression();
+        ParameterExpression<Comparable> firstParameter = (ParameterExpression<Comparable>) parameters.get(0);
+        Predicate seek = orders.get(0).isAscending() ? builder.greaterThanOrEqualTo(first, firstParameter) : builder.lessThanOrEqualTo(first, firstParameter);
+        return builder.and(seek, builder.or(restrictions.toArray(new Predicate[0])));
+    }
+
+    /**
+     * The results are not cached in a transaction that has invalidated them: they might not be committed.
+     *
+     * @return true if the results of the queries are cached
+     */
+    private boolean isResultCacheable() {
+        return this.resultCache.isEnabled() && !TransactionSynchronizationManager.hasResource(this.resultCache);
+    }
+
+    /**
+     * Returns the entities of a query through the result cache. Only the identifiers of the entities are cached: on a
+     * cache hit, the entities are loaded by their identifiers in the persistence context of the repository, so that the
+     * callers never share entity instances.
+     *
+     * @param method   the repository method
+     * @param criteria the optimized criteria
+     * @param page     the sort or the page
+     * @param options  the query options
+     * @param loader   the query
+     * @return the entities
+     */
+    private List<T> cachedEntities(String method, @Nullable Criteria criteria, @Nullable Object page, QueryOptions options, Supplier<List<T>> loader) {
+        if (!this.isResultCacheable()) {
+            return loader.get();
+        }
+        AtomicReference<List<T>> loaded = new AtomicReference<>();
+        List<Object> identifiers = this.resultCache.get(new ResultKey(method, criteria, page, options), () -> {
+            List<T> entities = loader.get();
+            loaded.set(entities);
+            return Collections.unmodifiableList(entities.stream().map(this.entityInformation::getId).collect(Collectors.toList()));
+        });
+        return loaded.get() != null ? loaded.get() : this.loadByIdentifiers(identifiers, options);
+    }
+
+    /**
+     * Measures a repository method with the recorder of the settings, see {@link CriteriaQueryRecorder}.
+     *
+     * @param method
+     * @param criteria
+     * @param query
+     * @param rows     number of rows of the result
+     * @param <R>
+     * @return
+     */
+    private <R> R record(String method, @Nullable Criteria criteria, Function<CriteriaQueryRecorder, R> query, ToLongFunction<R> rows) {
+        CriteriaQueryRecorder recorder = CriteriaQueryRecorder.start(this.settings, this.repositoryName, method, criteria);
+        try {
+            R result = query.apply(recorder);
+            recorder.rows(rows.applyAsLong(result));
+            return result;
+        } catch (RuntimeException e) {
+            recorder.failed(e);
+            throw e;
+        } finally {
+            recorder.stop();
+        }
+    }
+
+    /**
+     * Measures a repository method returning a stream: the query is reported when the stream is closed, with the
+     * number of entities consumed.
+     *
+     * @param method
+     * @param criteria
+     * @param query
+     * @param <R>
+     * @return
+     */
+    private <R> Stream<R> recordStream(String method, @Nullable Criteria criteria, Function<CriteriaQueryRecorder, Stream<R>> query) {
+        CriteriaQueryRecorder recorder = CriteriaQueryRecorder.start(this.settings, this.repositoryName, method, criteria);
+        Stream<R> stream;
+        try {
+            stream = query.apply(recorder);
+        } catch (RuntimeException e) {
+            recorder.failed(e);
+            recorder.stop();
+            throw e;
+        }
+        if (recorder == CriteriaQueryRecorder.DISABLED) {
+            return stream;
+        }
+        return stream.peek(entity -> recorder.row()).onClose(recorder::stop);
+    }
+
+    /**
+     * Returns the cached result of a query, executing it if the result is not cached. The result is shared between the
+     * callers: it must be immutable, see {@link #cachedEntities} for the entities.
+     *
+     * @param method   the query method
+     * @param criteria the normalized criteria
+     * @param page     the sort or the pageable of the query, if any
+     * @param options
+     * @param loader   the function executing the query
+     * @param <R>
+     * @return
+     */
+    private <R> R cachedResult(String method, @Nullable Criteria criteria, @Nullable Object page, QueryOptions options, Supplier<R> loader) {
+        if (!this.isResultCacheable()) {
+            return loader.get();
+        }
+        return this.resultCache.get(new ResultKey(method, criteria, page, options), loader);
+    }
+
+    /**
+     * Invalidates the cached results before a write operation, and once again when the surrounding transaction
+     * completes, so that the results read by other transactions before the commit are not kept.
+     */
+    private void invalidateResults() {
+        CriteriaResultCache cache = this.resultCache;
+        if (!cache.isEnabled()) {
+            return;
+        }
+        cache.invalidate();
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !TransactionSynchronizationManager.hasResource(cache)) {
+            TransactionSynchronizationManager.bindResource(cache, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(cache);
+                    cache.invalidate();
+                }
+            });
+        }
+    }
+
+    /**
+     * Normalizes the criteria, unless the optimization is disabled by the settings.
+     *
+     * @param criteria
+     * @return
+     */
+    private CriteriaOptimizer.Result optimize(@Nullable Criteria criteria) {
+        return this.settings.isCriteriaOptimization() ? CriteriaOptimizer.optimize(criteria) : CriteriaOptimizer.Result.of(criteria);
+    }
+
+    /**
+     * Normalizes the criteria and reports the criteria executed to the recorder.
+     *
+     * @param criteria
+     * @param recorder
+     * @return
+     */
+    private CriteriaOptimizer.Result optimize(@Nullable Criteria criteria, CriteriaQueryRecorder recorder) {
+        CriteriaOptimizer.Result optimized = this.optimize(criteria);
+        if (!optimized.isUnsatisfiable()) {
+            recorder.executed(optimized.getCriteria());
+        }
+        return optimized;
+    }
+
+    /**
+     * Creates the parameterized specification of a criteria
+     *
+     * @param criteria
+     * @param <S>
+     * @return
+     */
+    private <S> SpecificationCriteria<S> createSpecification(@Nullable Criteria criteria) {
+        return new SpecificationCriteria<S>(criteria, true)
+                .paths(this.pathCache)
+                .inClauseMaxSize(this.settings.getInClauseMaxSize())
+                .inClausePadding(this.settings.isInClausePadding())
+                .stringMatch(this.settings.getStringMatch());
+    }
 
+    /**
+     * Creates the parameterized specification of a criteria, with the join types and the string matches of the options
+     *
+     * @param criteria
+     * @param options
+     * @param <S>
+     * @return
+     */
+    private <S> SpecificationCriteria<S> createSpecification(@Nullable Criteria criteria, QueryOptions options) {
+        return this.<S>createSpecification(criteria)
+                .joinTypes(options.getJoinTypes())
+                .stringMatches(options.getStringMatches())
+                .normalizedProperties(options.getNormalizedProperties());
     }
 
     /**
@@ -194,6 +1623,37 @@ public class SimpleJpaCriteriaRepository<T, K extends Serializable> extends Simp
         }
     }
 
+    /**
+     * Applies the read-only, cache, fetch size and timeout hints of the options.
+     *
+     * @param query
+     * @param options
+     * @param <Q>
+     * @return
+     */
+    private <Q extends TypedQuery<?>> Q applyQueryHints(Q query, QueryOptions options) {
+        if (options.isReadOnly()) {
+            query.setHint(QueryHints.READ_ONLY, true);
+            query.setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+        }
+        if (options.isCacheable()) {
+            query.setHint(QueryHints.CACHEABLE, true);
+            if (options.getCacheRegion() != null) {
+                query.setHint(QueryHints.CACHE_REGION, options.getCacheRegion());
+            }
+        }
+        if (options.getCacheMode() != null) {
+            query.setHint(QueryHints.CACHE_MODE, options.getCacheMode());
+        }
+        if (options.getFetchSize() != null) {
+            query.setHint(QueryHints.FETCH_SIZE, options.getFetchSize());
+        }
+        if (options.getTimeout() != null) {
+            query.setHint(QueryHints.TIMEOUT_JPA, (int) options.getTimeout().toMillis());
+        }
+        return query;
+    }
+
     /**
      * @param spec
      * @param domainClass
@@ -222,38 +1682,164 @@ public class SimpleJpaCriteriaRepository<T, K extends Serializable> extends Simp
      * @param query
      * @param domainClass
      * @param pageable
-     * @param spec
+     * @param criteria
      * @param options
+     * @param recorder the recorder reporting the count query
      * @param <S>
      * @return
      */
-    private <S extends T> Page<S> readPage(TypedQuery<S> query, Class<S> domainClass, Pageable pageable, @Nullable Specification<S> spec, QueryOptions options) {
+    private <S extends T> Page<S> readPage(TypedQuery<S> query, Class<S> domainClass, Pageable pageable, @Nullable Criteria criteria, QueryOptions options, CriteriaQueryRecorder recorder) {
         if (pageable.isPaged()) {
             query.setFirstResult((int) pageable.getOffset());
             query.setMaxResults(pageable.getPageSize());
         }
-        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> executeCountQuery(this.getCountQuery(spec, domainClass, options)));
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable,
+                () -> recorder.count(() -> executeCountQuery(this.getCountQuery(criteria, domainClass, options))));
     }
 
     /**
      *
-     * @param spec
+     * @param criteria
      * @param domainClass
      * @param options
      * @param <S>
      * @return
      */
-    private <S extends T> TypedQuery<Long> getCountQuery(@Nullable Specification<S> spec, Class<S> domainClass, QueryOptions options) {
-        CriteriaBuilder builder = this.em.getCriteriaBuilder();
-        CriteriaQuery<Long> query = builder.createQuery(Long.class);
-        Root<S> root = this.applySpecification(spec, domainClass, query);
-        if (options.isDistinct()) {
-            query.select(builder.countDistinct(root));
+    private <S extends T> TypedQuery<Long> getCountQuery(@Nullable Criteria criteria, Class<S> domainClass, QueryOptions options) {
+        QueryKey key = new QueryKey(QueryType.COUNT, domainClass, CriteriaShape.of(criteria), Sort.unsorted(), options);
+        CompiledQuery<Long> compiledQuery = this.queryCache.get(key, () -> {
+            CriteriaBuilder builder = this.em.getCriteriaBuilder();
+            CriteriaQuery<Long> query = builder.createQuery(Long.class);
+            SpecificationCriteria<S> spec = createSpecification(criteria, options);
+            Root<S> root = this.applySpecification(spec, domainClass, query);
+            if (options.isDistinct()) {
+                query.select(builder.countDistinct(root));
+            } else {
+                query.select(builder.count(root));
+            }
+            query.orderBy(Collections.emptyList());
+            return new CompiledQuery<>(query, spec);
+        });
+        return this.applyQueryHints(compiledQuery.createQuery(this.em, criteria), options);
+    }
+
+    /**
+     * Restriction of a bulk statement. Update and delete statements cannot join the associations, so a criteria
+     * on the properties of an association is applied through a subquery on the identifiers.
+     *
+     * @param spec
+     * @param statement
+     * @param root
+     * @param builder
+     * @return
+     */
+    @Nullable
+    private Predicate getBulkRestriction(SpecificationCriteria<T> spec, CommonAbstractCriteria statement, Root<T> root, CriteriaBuilder builder) {
+        if (!spec.hasJoins(root.getModel())) {
+            return spec.toPredicate(root, builder);
+        }
+        SingularAttribute<? super T, ?> idAttribute = this.entityInformation.getIdAttribute();
+        if (idAttribute == null) {
+            throw new InvalidDataAccessApiUsageException(String.format("Bulk statements on associations of [%s] require a single identifier attribute", getDomainClass().getName()));
+        }
+        Subquery<Object> subquery = statement.subquery(Object.class);
+        Root<T> subRoot = subquery.from(getDomainClass());
+        subquery.select(subRoot.get(idAttribute.getName()));
+        Predicate predicate = spec.toPredicate(subRoot, builder);
+        if (predicate != null) {
+            subquery.where(predicate);
+        }
+        return root.get(idAttribute.getName()).in(subquery);
+    }
+
+    /**
+     * Increments a numeric version, or sets a timestamp version to the current time.
+     *
+     * @param update
+     * @param root
+     * @param builder
+     */
+    @SuppressWarnings("unchecked")
+    private void applyVersionIncrement(CriteriaUpdate<T> update, Root<T> root, CriteriaBuilder builder) {
+        SingularAttribute<? super T, ?> versionAttribute = this.em.getMetamodel().entity(getDomainClass()).getSingularAttributes().stream()
+                .filter(SingularAttribute::isVersion)
+                .findFirst()
+                .orElseThrow(() -> new InvalidDataAccessApiUsageException(String.format("Entity [%s] has no version attribute", getDomainClass().getName())));
+        Path<Object> version = root.get(versionAttribute.getName());
+        Class<?> versionType = ClassUtils.resolvePrimitiveIfNecessary(versionAttribute.getJavaType());
+        if (Number.class.isAssignableFrom(versionType)) {
+            Number one = NumberUtils.convertNumberToTargetClass(1, (Class<Number>) versionType);
+            update.<Object>set(version, builder.sum((Expression<Number>) (Expression<?>) version, one));
+        } else if (Date.class.isAssignableFrom(versionType)) {
+            update.<Object>set(version, builder.currentTimestamp());
         } else {
-            query.select(builder.count(root));
+            throw new InvalidDataAccessApiUsageException(String.format("Version of type [%s] is not supported by bulk updates", versionType.getName()));
+        }
+    }
+
+    /**
+     * Converts a number to the type of the assigned property.
+     *
+     * @param value
+     * @param type
+     * @return
+     */
+    private static Object convertAssignment(Object value, Class<?> type) {
+        return SpecificationCriteria.convertNumber(value, type);
+    }
+
+    /**
+     * @param root
+     * @param property the property, or the path of an embedded property
+     * @return
+     */
+    private static Path<Object> getPath(Root<?> root, String property) {
+        Path<Object> path = null;
+        for (String attribute : property.split("\\.")) {
+            path = path == null ? root.get(attribute) : path.get(attribute);
+        }
+        return path;
+    }
+
+    /**
+     * Detaches the managed instances of the domain class, whose state may have been modified by a bulk statement.
+     *
+     * @param domainClass
+     */
+    private void evictManagedEntities(Class<?> domainClass) {
+        SessionImplementor session = this.em.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+            if (domainClass.isInstance(entry.getKey())) {
+                this.em.detach(entry.getKey());
+            }
         }
-        query.orderBy(Collections.emptyList());
-        return this.em.createQuery(query);
+    }
+
+    /**
+     * Query selecting the identifier (or a constant when the entity has an id class) of the matching rows.
+     *
+     * @param criteria
+     * @param domainClass
+     * @param options
+     * @param <S>
+     * @return
+     */
+    private <S extends T> TypedQuery<?> getExistsQuery(@Nullable Criteria criteria, Class<S> domainClass, QueryOptions options) {
+        QueryKey key = new QueryKey(QueryType.EXISTS, domainClass, CriteriaShape.of(criteria), Sort.unsorted(), options);
+        CompiledQuery<?> compiledQuery = this.queryCache.get(key, () -> {
+            CriteriaBuilder builder = this.em.getCriteriaBuilder();
+            CriteriaQuery<Object> query = builder.createQuery(Object.class);
+            SpecificationCriteria<S> spec = createSpecification(criteria, options);
+            Root<S> root = this.applySpecification(spec, domainClass, query);
+            SingularAttribute<? super T, ?> idAttribute = this.entityInformation.getIdAttribute();
+            if (idAttribute != null) {
+                query.select(root.get(idAttribute.getName()));
+            } else {
+                query.select(builder.literal(1));
+            }
+            return new CompiledQuery<>(query, spec);
+        });
+        return this.applyQueryHints(compiledQuery.createQuery(this.em, criteria), options);
     }
 
     /**
@@ -296,4 +1882,73 @@ public class SimpleJpaCriteriaRepository<T, K extends Serializable> extends Simp
         }
     }
 
+    /**
+     * Type of a compiled query
+     */
+    private enum QueryType {
+        SELECT, COUNT, EXISTS, KEYSET, PROJECTION, IDENTIFIERS, FETCH_BY_IDENTIFIERS, BATCH_SELECT, BATCH_COUNT
+    }
+
+    /**
+     * Key of a cached query result
+     */
+    @EqualsAndHashCode
+    private static final class ResultKey {
+
+        private final String method;
+        private final Criteria criteria;
+        private final Object page;
+        private final boolean distinct;
+        private final boolean readOnly;
+        private final Set<String> associations;
+        private final Map<String, JoinType> joinTypes;
+        private final Map<String, StringMatch> stringMatches;
+        private final Map<String, String> normalizedProperties;
+
+        ResultKey(String method, @Nullable Criteria criteria, @Nullable Object page, QueryOptions options) {
+            this.method = method;
+            this.criteria = criteria;
+            this.page = page;
+            this.distinct = options.isDistinct();
+            this.readOnly = options.isReadOnly();
+            this.associations = new HashSet<>(options.getAssociations());
+            this.joinTypes = new HashMap<>(options.getJoinTypes());
+            this.stringMatches = new HashMap<>(options.getStringMatches());
+            this.normalizedProperties = new HashMap<>(options.getNormalizedProperties());
+        }
+    }
+
+    /**
+     * Key of a compiled query
+     */
+    @EqualsAndHashCode
+    private static final class QueryKey {
+
+        private final QueryType type;
+        private final Class<?> domainClass;
+        private final Class<?> resultType;
+        private final CriteriaShape shape;
+        private final Sort sort;
+        private final boolean distinct;
+        private final Map<String, JoinType> joinTypes;
+        private final Map<String, StringMatch> stringMatches;
+        private final Map<String, String> normalizedProperties;
+
+        QueryKey(QueryType type, Class<?> domainClass, CriteriaShape shape, @Nullable Sort sort, QueryOptions options) {
+            this(type, domainClass, domainClass, shape, sort, options);
+        }
+
+        QueryKey(QueryType type, Class<?> domainClass, Class<?> resultType, CriteriaShape shape, @Nullable Sort sort, QueryOptions options) {
+            this.type = type;
+            this.domainClass = domainClass;
+            this.resultType = resultType;
+            this.shape = shape;
+            this.sort = sort == null ? Sort.unsorted() : sort;
+            this.distinct = options.isDistinct();
+            this.joinTypes = new HashMap<>(options.getJoinTypes());
+            this.stringMatches = new HashMap<>(options.getStringMatches());
+            this.normalizedProperties = new HashMap<>(options.getNormalizedProperties());
+        }
+    }
+
 }
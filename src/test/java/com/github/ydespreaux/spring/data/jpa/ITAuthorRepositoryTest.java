@@ -23,8 +23,12 @@ package com.github.ydespreaux.spring.data.jpa;
 import com.github.ydespreaux.spring.data.jpa.configuration.JpaConfiguration;
 import com.github.ydespreaux.spring.data.jpa.configuration.entities.Author;
 import com.github.ydespreaux.spring.data.jpa.configuration.repository.AuthorRepository;
+import com.github.ydespreaux.spring.data.jpa.query.BulkOptions;
 import com.github.ydespreaux.spring.data.jpa.query.Criteria;
+import com.github.ydespreaux.spring.data.jpa.query.KeysetPageable;
+import com.github.ydespreaux.spring.data.jpa.query.KeysetSlice;
 import com.github.ydespreaux.spring.data.jpa.query.QueryOptions;
+import lombok.Getter;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -33,13 +37,17 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.criteria.JoinType;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
@@ -124,12 +132,129 @@ public class ITAuthorRepositoryTest {
         Assert.assertThat(result.get(2).getLastName(), is(equalTo(ITSuiteTest.elenaFerrante)));
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NEVER)
+    public void findAllWithCollectionAssociationAndPageable() {
+        Page<Author> result = this.authorRepository.findAll(null, createPageable(0, 2), new QueryOptions().withAssociation("books", "books.editor"));
+        Assert.assertThat(result.getTotalElements(), is(equalTo(3L)));
+        Assert.assertThat(result.getContent().size(), is(equalTo(2)));
+        Assert.assertThat(result.getContent().get(0).getLastName(), is(equalTo(ITSuiteTest.nicolasBeuglet)));
+        Assert.assertThat(result.getContent().get(1).getLastName(), is(equalTo(ITSuiteTest.harlanCoben)));
+        Assert.assertThat(result.getContent().get(1).getBooks().isEmpty(), is(false));
+    }
+
     @Test
     public void countWithAssociation() {
         Long count = this.authorRepository.count(null, new QueryOptions().withAssociation("books"));
         Assert.assertThat(count, is(equalTo(3L)));
     }
 
+    @Test
+    public void countByBookDescriptionWithJoinType() {
+        Criteria criteria = new Criteria("books.description").contains("Norvege").or("lastName").eq(ITSuiteTest.elenaFerrante);
+        Assert.assertThat(this.authorRepository.count(criteria, new QueryOptions().distinct(true)), is(equalTo(2L)));
+        Assert.assertThat(this.authorRepository.count(criteria, new QueryOptions().distinct(true).withJoinType("books", JoinType.INNER)), is(equalTo(2L)));
+    }
+
+    @Test
+    public void existsByBookDescription() {
+        Assert.assertThat(this.authorRepository.exists(new Criteria("books.description").contains("Norvege")), is(true));
+        Assert.assertThat(this.authorRepository.exists(new Criteria("lastName").eq("unknown")), is(false));
+    }
+
+    @Test
+    @Transactional
+    public void updateAllByLastName() {
+        int count = this.authorRepository.updateAll(new Criteria("lastName").eq(ITSuiteTest.harlanCoben), Collections.singletonMap("firstName", "H."), new BulkOptions().versionIncrement(true));
+        Assert.assertThat(count, is(equalTo(1)));
+        Assert.assertThat(this.authorRepository.count(new Criteria("firstName").eq("H.")), is(equalTo(1L)));
+    }
+
+    @Test
+    @Transactional
+    public void deleteAllWithoutMatch() {
+        Assert.assertThat(this.authorRepository.deleteAll(new Criteria("lastName").eq("unknown")), is(equalTo(0)));
+        Assert.assertThat(this.authorRepository.count(), is(equalTo(3L)));
+    }
+
+    @Test
+    public void countWithCompiledQuery() {
+        long misses = this.authorRepository.getQueryCache().getMissCount();
+        long hits = this.authorRepository.getQueryCache().getHitCount();
+        Assert.assertThat(this.authorRepository.count(new Criteria("lastName").eq(ITSuiteTest.harlanCoben)), is(equalTo(1L)));
+        Assert.assertThat(this.authorRepository.count(new Criteria("lastName").eq(ITSuiteTest.elenaFerrante)), is(equalTo(1L)));
+        Assert.assertThat(this.authorRepository.getQueryCache().getMissCount(), is(equalTo(misses + 1)));
+        Assert.assertThat(this.authorRepository.getQueryCache().getHitCount(), is(equalTo(hits + 1)));
+    }
+
+    @Test
+    public void findSliceWithPageable() {
+        Slice<Author> first = this.authorRepository.findSlice(null, createPageable(0, 2));
+        Assert.assertThat(first.getContent().size(), is(equalTo(2)));
+        Assert.assertThat(first.hasNext(), is(true));
+        Assert.assertThat(first.getContent().get(0).getLastName(), is(equalTo(ITSuiteTest.nicolasBeuglet)));
+        Slice<Author> second = this.authorRepository.findSlice(null, first.nextPageable());
+        Assert.assertThat(second.getContent().size(), is(equalTo(1)));
+        Assert.assertThat(second.hasNext(), is(false));
+        Assert.assertThat(second.getContent().get(0).getLastName(), is(equalTo(ITSuiteTest.elenaFerrante)));
+    }
+
+    @Test
+    public void findSliceWithKeyset() {
+        KeysetSlice<Author> first = this.authorRepository.findSlice(null, KeysetPageable.of(2, Sort.by(Sort.Direction.ASC, "lastName")));
+        Assert.assertThat(first.getContent().size(), is(equalTo(2)));
+        Assert.assertThat(first.hasNext(), is(true));
+        Assert.assertThat(first.getContent().get(0).getLastName(), is(equalTo(ITSuiteTest.nicolasBeuglet)));
+        Assert.assertThat(first.getContent().get(1).getLastName(), is(equalTo(ITSuiteTest.harlanCoben)));
+        KeysetSlice<Author> second = this.authorRepository.findSlice(null, first.nextKeysetPageable());
+        Assert.assertThat(second.getContent().size(), is(equalTo(1)));
+        Assert.assertThat(second.hasNext(), is(false));
+        Assert.assertThat(second.getContent().get(0).getLastName(), is(equalTo(ITSuiteTest.elenaFerrante)));
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    public void streamAllByBookDescription() {
+        try (Stream<Author> stream = this.authorRepository.streamAll(new Criteria("books.description").contains("Norvege"), Sort.by("lastName"), new QueryOptions().distinct(true))) {
+            List<String> lastNames = stream.map(Author::getLastName).collect(Collectors.toList());
+            Assert.assertThat(lastNames.size(), is(equalTo(1)));
+            Assert.assertThat(lastNames.get(0), is(equalTo(ITSuiteTest.nicolasBeuglet)));
+        }
+    }
+
+    @Test
+    public void findAllWithInterfaceProjection() {
+        List<AuthorName> result = this.authorRepository.findAll(new Criteria("books.description").contains("Norvege"), AuthorName.class, Sort.by("lastName"), new QueryOptions().distinct(true));
+        Assert.assertThat(result.size(), is(equalTo(1)));
+        Assert.assertThat(result.get(0).getLastName(), is(equalTo(ITSuiteTest.nicolasBeuglet)));
+    }
+
+    @Test
+    public void findAllWithDtoProjectionAndPageable() {
+        Page<AuthorNameDto> result = this.authorRepository.findAll(null, AuthorNameDto.class, createPageable(0, 2));
+        Assert.assertThat(result.getTotalElements(), is(equalTo(3L)));
+        Assert.assertThat(result.getContent().size(), is(equalTo(2)));
+        Assert.assertThat(result.getContent().get(0).getLastName(), is(equalTo(ITSuiteTest.nicolasBeuglet)));
+        Assert.assertThat(result.getContent().get(1).getLastName(), is(equalTo(ITSuiteTest.harlanCoben)));
+    }
+
+    public interface AuthorName {
+        String getFirstName();
+
+        String getLastName();
+    }
+
+    @Getter
+    public static class AuthorNameDto {
+        private final String firstName;
+        private final String lastName;
+
+        public AuthorNameDto(String firstName, String lastName) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+    }
+
     /**
      * @return
      */
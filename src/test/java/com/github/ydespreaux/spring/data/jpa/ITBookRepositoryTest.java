@@ -1 +1 @@
-/* * Copyright (C) 2018 Yoann Despréaux * * This program eq free software; you can redistribute it and/or modify * it under the terms of the GNU General Public License as published by * the Free Software Foundation; either version 2 of the License, or * (at your option) any later version. * * This program eq distributed in the hope that it will be useful, * but WITHOUT ANY WARRANTY; without even the implied warranty of * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the * GNU General Public License for more details. * * You should have received a copy of the GNU General Public License * along with this program; see the file COPYING . If not, write to the * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA. * * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr */package com.github.ydespreaux.spring.data.jpa;import com.github.ydespreaux.spring.data.jpa.configuration.JpaConfiguration;import com.github.ydespreaux.spring.data.jpa.configuration.entities.Book;import com.github.ydespreaux.spring.data.jpa.configuration.repository.BookRepository;import com.github.ydespreaux.spring.data.jpa.query.Criteria;import com.github.ydespreaux.spring.data.jpa.query.QueryOptions;import org.junit.Assert;import org.junit.Test;import org.junit.runner.RunWith;import org.springframework.beans.factory.annotation.Autowired;import org.springframework.boot.test.context.SpringBootTest;import org.springframework.data.domain.Page;import org.springframework.data.domain.PageRequest;import org.springframework.data.domain.Pageable;import org.springframework.data.domain.Sort;import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;import org.springframework.transaction.annotation.Propagation;import org.springframework.transaction.annotation.Transactional;import java.time.LocalDate;import java.util.List;import java.util.Optional;import static org.hamcrest.Matchers.equalTo;import static org.hamcrest.Matchers.is;/** * @author Yoann Despréaux * @since 1.0.0 */@RunWith(SpringJUnit4ClassRunner.class)@SpringBootTest(classes = JpaConfiguration.class)public class ITBookRepositoryTest {    @Autowired    protected BookRepository bookRepository;    @Test    public void findAllByGenreAndPriceWithPageable() {        Criteria criteria = new Criteria("genre").eq(Book.Genre.FANTASTIQUE)                .or("genre").eq(Book.Genre.FICTION)                .and("price").between(8, 10);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));    }    @Test    public void countByGenreAndPrice() {        Criteria criteria = new Criteria("genre").eq(Book.Genre.FANTASTIQUE)                .or("genre").eq(Book.Genre.FICTION)                .and("price").between(8, 10);        long count = this.bookRepository.count(criteria);        Assert.assertThat(count, is(equalTo(1L)));    }    @Test    public void findAllByGenreAndPrice() {        Criteria criteria = new Criteria("genre").eq(Book.Genre.FANTASTIQUE)                .or("genre").eq(Book.Genre.FICTION)                .and("price").between(8, 10);        List<Book> result = this.bookRepository.findAll(criteria);        Assert.assertThat(result.size(), is(equalTo(1)));        Assert.assertThat(result.get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));    }    @Test    public void findAllByTitleWithMultiCriteresWithPageable() {        Criteria criteria = new Criteria("title").contains("Walking Dead")                .and("description").contains("La Colline");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));    }    @Test    public void findOneByTitleWithMultiCriteres() {        Criteria criteria = new Criteria("title").contains("Walking Dead")                .and("description").contains("La Colline");        Optional<Book> result = this.bookRepository.findOne(criteria);        Assert.assertThat(result.isPresent(), is(true));        Assert.assertThat(result.get().getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));    }    @Test    public void findOneByTitleEmptyResult() {        Criteria criteria = new Criteria("title").eq("Oui Oui");        Optional<Book> result = this.bookRepository.findOne(criteria);        Assert.assertThat(result.isPresent(), is(false));    }    @Test    public void findAllByTitleWithOrCriteresWithPageable() {        Criteria criteria = new Criteria("title").contains("Walking Dead")                .or("description").contains("La Colline");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByTitleWithMultiCriteres_or_withSort() {        Criteria criteria = new Criteria("title").contains("Walking Dead")                .or("description").contains("La Colline");        List<Book> result = this.bookRepository.findAll(criteria, Sort.by(Sort.Direction.ASC, "title"));        Assert.assertThat(result.size(), is(equalTo(2)));        Assert.assertThat(result.get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByTitleWithEqWithPageable() {        Criteria criteria = new Criteria("title").eq("Sans defense");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));    }    @Test    public void findAllByGenreWithEqWithPageable() {        Criteria criteria = new Criteria("genre").eq(Book.Genre.THRILLER);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(3L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(3)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.leCri)));        Assert.assertThat(result.getContent().get(2).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));    }    @Test    public void findAllByGenreWithNotEqWithPageable() {        Criteria criteria = new Criteria("genre").notEq(Book.Genre.THRILLER);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(3L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Page<Book> result1 = this.bookRepository.findAll(criteria, createPageable(1, 2));        Assert.assertThat(result1.getTotalElements(), is(equalTo(3L)));        Assert.assertThat(result1.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result1.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByGenreWithInWithPageable() {        Criteria criteria = new Criteria("genre").in(Book.Genre.THRILLER, Book.Genre.FICTION);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(4L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(4)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.getContent().get(2).getTitle(), is(equalTo(ITSuiteTest.leCri)));        Assert.assertThat(result.getContent().get(3).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));    }    @Test    public void findAllByGenreWithNotInWithPageable() {        Criteria criteria = new Criteria("genre").notIn(Book.Genre.THRILLER, Book.Genre.FICTION);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByAuthorWithNullWithPageable() {        Criteria criteria = new Criteria("author").isNull();        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByAuthorWithNotNullWithPageable() {        Criteria criteria = new Criteria("author").isNotNull();        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(4L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(4)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.getContent().get(2).getTitle(), is(equalTo(ITSuiteTest.leCri)));        Assert.assertThat(result.getContent().get(3).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));    }    @Test    public void findAllByPriceWithBetweenWithPageable() {        Criteria criteria = new Criteria("price").between(10.0, 20.0);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByPriceWithGreaterWithPageable() {        Criteria criteria = new Criteria("price").greaterThan(21.90);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(0L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(0)));    }    @Test    public void findAllByPriceWithGreaterOrEqualsWithPageable() {        Criteria criteria = new Criteria("price").greaterThanEqual(21.90);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));    }    @Test    public void findAllByPriceWithLessWithPageable() {        Criteria criteria = new Criteria("price").lessThan(8.30);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.leCri)));    }    @Test    public void findAllByPriceWithLessOrEqualsWithPageable() {        Criteria criteria = new Criteria("price").lessThanEqual(8.30);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.leCri)));    }    @Test    public void findAllByDescriptionWithContainsWithPageable() {        Criteria criteria = new Criteria("description").contains("Rick");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByTitleWithStartWith() {        Criteria criteria = new Criteria("title").startsWith("Walking");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findByTitleWithEndWith() {        Criteria criteria = new Criteria("title").endsWith("reste");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));    }    @Test    public void findByPublicationWithBetweenWithPageable() {        Criteria criteria = new Criteria("publication").between(buildPublication(2018, 1, 1), buildPublication(2018, 2, 1));        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.leCri)));    }    @Test    public void findByAuthorWithPageable() {        Criteria criteria = new Criteria("author.lastName").eq(ITSuiteTest.nicolasBeuglet);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.leCri)));    }    @Test    public void findByEditor() {        Criteria criteria = new Criteria("editor.label").eq(ITSuiteTest.editorDelcourt);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findBookById() {        Optional<Book> result = this.bookRepository.findById(3L);        Assert.assertThat(result.isPresent(), is(true));        Assert.assertThat(result.get().getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));    }    @Test    @Transactional(propagation = Propagation.NEVER)    public void findAllWithAllAssociationAndSort() {        List<Book> result = this.bookRepository.findAll(null, Sort.by(Sort.Direction.ASC, "title"), new QueryOptions().withAssociation("author", "editor"));        Assert.assertThat(result.size(), is(equalTo(6)));        Assert.assertThat(result.get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(result.get(1).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.get(2).getTitle(), is(equalTo(ITSuiteTest.leCri)));        Assert.assertThat(result.get(3).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));        Assert.assertThat(result.get(4).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.get(5).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    /**     * @param year     * @param month     * @param day     * @return     */    private LocalDate buildPublication(int year, int month, int day) {        return LocalDate.of(year, month, day);    }    /**     * @return     */    private Pageable createPageable(int page, int size) {        return PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "title"));    }}
\ No newline at end of file
+/* * Copyright (C) 2018 Yoann Despréaux * * This program eq free software; you can redistribute it and/or modify * it under the terms of the GNU General Public License as published by * the Free Software Foundation; either version 2 of the License, or * (at your option) any later version. * * This program eq distributed in the hope that it will be useful, * but WITHOUT ANY WARRANTY; without even the implied warranty of * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the * GNU General Public License for more details. * * You should have received a copy of the GNU General Public License * along with this program; see the file COPYING . If not, write to the * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA. * * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr */package com.github.ydespreaux.spring.data.jpa;import com.github.ydespreaux.spring.data.jpa.configuration.JpaConfiguration;import com.github.ydespreaux.spring.data.jpa.configuration.entities.Book;import com.github.ydespreaux.spring.data.jpa.configuration.repository.BookRepository;import com.github.ydespreaux.spring.data.jpa.query.Criteria;import com.github.ydespreaux.spring.data.jpa.query.QueryOptions;import com.github.ydespreaux.spring.data.jpa.query.StringMatch;import com.github.ydespreaux.spring.data.jpa.repository.support.CriteriaCursor;import com.github.ydespreaux.spring.data.jpa.repository.support.JpaCriteriaSettings;import com.github.ydespreaux.spring.data.jpa.repository.support.SimpleJpaCriteriaRepository;import org.hibernate.annotations.QueryHints;import org.junit.Assert;import org.junit.Test;import org.junit.runner.RunWith;import org.springframework.beans.factory.annotation.Autowired;import org.springframework.boot.test.context.SpringBootTest;import org.springframework.dao.InvalidDataAccessApiUsageException;import org.springframework.data.domain.Page;import org.springframework.data.domain.PageRequest;import org.springframework.data.domain.Pageable;import org.springframework.data.domain.Sort;import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;import org.springframework.transaction.annotation.Propagation;import org.springframework.transaction.annotation.Transactional;import javax.persistence.EntityManager;import javax.persistence.PersistenceContext;import javax.persistence.TypedQuery;import java.lang.reflect.InvocationTargetException;import java.lang.reflect.Proxy;import java.time.Duration;import java.time.LocalDate;import java.util.ArrayList;import java.util.Arrays;import java.util.Collections;import java.util.List;import java.util.Optional;import java.util.Queue;import java.util.concurrent.CompletableFuture;import java.util.concurrent.ConcurrentLinkedQueue;import java.util.stream.Collectors;import java.util.stream.Stream;import static org.hamcrest.Matchers.equalTo;import static org.hamcrest.Matchers.is;/** * @author Yoann Despréaux * @since 1.0.0 */@RunWith(SpringJUnit4ClassRunner.class)@SpringBootTest(classes = JpaConfiguration.class)public class ITBookRepositoryTest {    @Autowired    protected BookRepository bookRepository;    @PersistenceContext    private EntityManager entityManager;    @Test    public void findAllByGenreAndPriceWithPageable() {        Criteria criteria = new Criteria("genre").eq(Book.Genre.FANTASTIQUE)                .or("genre").eq(Book.Genre.FICTION)                .and("price").between(8, 10);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));    }    @Test    public void countByGenreAndPrice() {        Criteria criteria = new Criteria("genre").eq(Book.Genre.FANTASTIQUE)                .or("genre").eq(Book.Genre.FICTION)                .and("price").between(8, 10);        long count = this.bookRepository.count(criteria);        Assert.assertThat(count, is(equalTo(1L)));    }    @Test    public void findAllByGenreAndPrice() {        Criteria criteria = new Criteria("genre").eq(Book.Genre.FANTASTIQUE)                .or("genre").eq(Book.Genre.FICTION)                .and("price").between(8, 10);        List<Book> result = this.bookRepository.findAll(criteria);        Assert.assertThat(result.size(), is(equalTo(1)));        Assert.assertThat(result.get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));    }    @Test    public void findAllByTitleWithMultiCriteresWithPageable() {        Criteria criteria = new Criteria("title").contains("Walking Dead")                .and("description").contains("La Colline");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));    }    @Test    public void findOneByTitleWithMultiCriteres() {        Criteria criteria = new Criteria("title").contains("Walking Dead")                .and("description").contains("La Colline");        Optional<Book> result = this.bookRepository.findOne(criteria);        Assert.assertThat(result.isPresent(), is(true));        Assert.assertThat(result.get().getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));    }    @Test    public void findOneByTitleEmptyResult() {        Criteria criteria = new Criteria("title").eq("Oui Oui");        Optional<Book> result = this.bookRepository.findOne(criteria);        Assert.assertThat(result.isPresent(), is(false));    }    @Test    public void findAllByTitleWithOrCriteresWithPageable() {        Criteria criteria = new Criteria("title").contains("Walking Dead")                .or("description").contains("La Colline");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByTitleWithMultiCriteres_or_withSort() {        Criteria criteria = new Criteria("title").contains("Walking Dead")                .or("description").contains("La Colline");        List<Book> result = this.bookRepository.findAll(criteria, Sort.by(Sort.Direction.ASC, "title"));        Assert.assertThat(result.size(), is(equalTo(2)));        Assert.assertThat(result.get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByTitleWithEqWithPageable() {        Criteria criteria = new Criteria("title").eq("Sans defense");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));    }    @Test    public void findAllByGenreWithEqWithPageable() {        Criteria criteria = new Criteria("genre").eq(Book.Genre.THRILLER);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(3L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(3)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.leCri)));        Assert.assertThat(result.getContent().get(2).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));    }    @Test    public void findAllByGenreWithNotEqWithPageable() {        Criteria criteria = new Criteria("genre").notEq(Book.Genre.THRILLER);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(3L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Page<Book> result1 = this.bookRepository.findAll(criteria, createPageable(1, 2));        Assert.assertThat(result1.getTotalElements(), is(equalTo(3L)));        Assert.assertThat(result1.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result1.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByGenreWithInWithPageable() {        Criteria criteria = new Criteria("genre").in(Book.Genre.THRILLER, Book.Genre.FICTION);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(4L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(4)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.getContent().get(2).getTitle(), is(equalTo(ITSuiteTest.leCri)));        Assert.assertThat(result.getContent().get(3).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));    }    @Test    public void findAllByGenreWithNotInWithPageable() {        Criteria criteria = new Criteria("genre").notIn(Book.Genre.THRILLER, Book.Genre.FICTION);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByAuthorWithNullWithPageable() {        Criteria criteria = new Criteria("author").isNull();        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 2));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByAuthorWithNotNullWithPageable() {        Criteria criteria = new Criteria("author").isNotNull();        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(4L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(4)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.getContent().get(2).getTitle(), is(equalTo(ITSuiteTest.leCri)));        Assert.assertThat(result.getContent().get(3).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));    }    @Test    public void findAllByPriceWithBetweenWithPageable() {        Criteria criteria = new Criteria("price").between(10.0, 20.0);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByPriceWithGreaterWithPageable() {        Criteria criteria = new Criteria("price").greaterThan(21.90);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(0L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(0)));    }    @Test    public void findAllByPriceWithGreaterOrEqualsWithPageable() {        Criteria criteria = new Criteria("price").greaterThanEqual(21.90);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));    }    @Test    public void findAllByPriceWithLessWithPageable() {        Criteria criteria = new Criteria("price").lessThan(8.30);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.leCri)));    }    @Test    public void findAllByPriceWithLessOrEqualsWithPageable() {        Criteria criteria = new Criteria("price").lessThanEqual(8.30);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.leCri)));    }    @Test    public void findAllByDescriptionWithContainsWithPageable() {        Criteria criteria = new Criteria("description").contains("Rick");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByTitleWithStartWith() {        Criteria criteria = new Criteria("title").startsWith("Walking");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findByTitleWithEndWith() {        Criteria criteria = new Criteria("title").endsWith("reste");        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(1L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(1)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));    }    @Test    public void findByPublicationWithBetweenWithPageable() {        Criteria criteria = new Criteria("publication").between(buildPublication(2018, 1, 1), buildPublication(2018, 2, 1));        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.leCri)));    }    @Test    public void findByAuthorWithPageable() {        Criteria criteria = new Criteria("author.lastName").eq(ITSuiteTest.nicolasBeuglet);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.leCri)));    }    @Test    public void findByEditor() {        Criteria criteria = new Criteria("editor.label").eq(ITSuiteTest.editorDelcourt);        Page<Book> result = this.bookRepository.findAll(criteria, createPageable(0, 5));        Assert.assertThat(result.getTotalElements(), is(equalTo(2L)));        Assert.assertThat(result.getNumberOfElements(), is(equalTo(2)));        Assert.assertThat(result.getContent().get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.getContent().get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findBookById() {        Optional<Book> result = this.bookRepository.findById(3L);        Assert.assertThat(result.isPresent(), is(true));        Assert.assertThat(result.get().getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));    }    @Test    @Transactional(propagation = Propagation.NEVER)    public void findAllWithAllAssociationAndSort() {        List<Book> result = this.bookRepository.findAll(null, Sort.by(Sort.Direction.ASC, "title"), new QueryOptions().withAssociation("author", "editor"));        Assert.assertThat(result.size(), is(equalTo(6)));        Assert.assertThat(result.get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(result.get(1).getTitle(), is(equalTo(ITSuiteTest.amieProdigieuse)));        Assert.assertThat(result.get(2).getTitle(), is(equalTo(ITSuiteTest.leCri)));        Assert.assertThat(result.get(3).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));        Assert.assertThat(result.get(4).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.get(5).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void findAllByAuthorId() {        List<Book> result = this.bookRepository.findAll(new Criteria("author.id").eq(1L), Sort.by(Sort.Direction.ASC, "title"));        Assert.assertThat(result.size(), is(equalTo(2)));        Assert.assertThat(result.get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(result.get(1).getTitle(), is(equalTo(ITSuiteTest.leCri)));    }    @Test    public void findAllByTitleWithStartWithPrefixRange() {        Criteria criteria = new Criteria("title").startsWith("Walking");        List<Book> result = this.bookRepository.findAll(criteria, Sort.by(Sort.Direction.ASC, "title"), new QueryOptions().withStringMatch("title", StringMatch.PREFIX_RANGE));        Assert.assertThat(result.size(), is(equalTo(2)));        Assert.assertThat(result.get(0).getTitle(), is(equalTo(ITSuiteTest.walkingDead28)));        Assert.assertThat(result.get(1).getTitle(), is(equalTo(ITSuiteTest.walkingDead29)));    }    @Test    public void countByTitleWithContainsWildcard() {        Assert.assertThat(this.bookRepository.count(new Criteria("title").contains("%")), is(equalTo(0L)));        Assert.assertThat(this.bookRepository.count(new Criteria("title").startsWith("Walking_")), is(equalTo(0L)));    }    @Test    public void findAllWithQueryHints() {        List<org.hibernate.query.Query<?>> queries = new ArrayList<>();        SimpleJpaCriteriaRepository<Book, Long> repository = new SimpleJpaCriteriaRepository<>(Book.class, recordingEntityManager(queries));        QueryOptions options = new QueryOptions().cacheable(true).fetchSize(10).timeout(Duration.ofSeconds(5));        List<Book> result = repository.findAll(new Criteria("genre").eq(Book.Genre.THRILLER), Sort.by(Sort.Direction.ASC, "title"), options);        Assert.assertThat(result.size(), is(equalTo(3)));        Assert.assertThat(repository.count(new Criteria("genre").eq(Book.Genre.THRILLER), options), is(equalTo(3L)));        Assert.assertThat(queries.size(), is(equalTo(2)));        for (org.hibernate.query.Query<?> query : queries) {            Assert.assertThat(query.isCacheable(), is(equalTo(true)));            Assert.assertThat(query.getFetchSize(), is(equalTo(10)));            Assert.assertThat(query.getTimeout(), is(equalTo(5)));            Assert.assertThat(query.getHints().get(QueryHints.TIMEOUT_JPA), is(equalTo(5000)));        }    }    @Test    public void findAllReadOnly() {        List<Book> result = this.bookRepository.findAll(new Criteria("genre").eq(Book.Genre.THRILLER), Sort.by(Sort.Direction.ASC, "title"), new QueryOptions().readOnly(true));        Assert.assertThat(result.size(), is(equalTo(3)));        Assert.assertThat(result.get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));    }    @Test    public void scrollAllByGenre() {        try (Stream<Book> books = this.bookRepository.scrollAll(new Criteria("genre").in(Book.Genre.THRILLER, Book.Genre.FICTION), Sort.by(Sort.Direction.ASC, "title"))) {            List<String> titles = books.map(Book::getTitle).collect(Collectors.toList());            Assert.assertThat(titles.size(), is(equalTo(4)));            Assert.assertThat(titles.get(0), is(equalTo(ITSuiteTest.complot)));            Assert.assertThat(titles.get(3), is(equalTo(ITSuiteTest.sansDefense)));        }    }    @Test    public void findAllAsyncByGenre() {        CompletableFuture<List<Book>> books = this.bookRepository.findAllAsync(new Criteria("genre").eq(Book.Genre.THRILLER), Sort.by(Sort.Direction.ASC, "title"));        CompletableFuture<Long> count = this.bookRepository.countAsync(new Criteria("genre").eq(Book.Genre.THRILLER));        Assert.assertThat(books.join().size(), is(equalTo(3)));        Assert.assertThat(books.join().get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(count.join(), is(equalTo(3L)));    }    @Test    public void openCursorByGenre() {        try (CriteriaCursor<Book> cursor = this.bookRepository.openCursor(new Criteria("genre").in(Book.Genre.THRILLER, Book.Genre.FICTION), Sort.by(Sort.Direction.ASC, "title"))) {            List<Book> first = cursor.next(3).join();            Assert.assertThat(first.size(), is(equalTo(3)));            Assert.assertThat(first.get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));            List<Book> last = cursor.next(3).join();            Assert.assertThat(last.size(), is(equalTo(1)));            Assert.assertThat(last.get(0).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));            Assert.assertThat(cursor.isExhausted(), is(equalTo(true)));        }    }    @Test    public void scanAllByGenre() {        Queue<String> titles = new ConcurrentLinkedQueue<>();        long count = this.bookRepository.scanAll(new Criteria("genre").in(Book.Genre.THRILLER, Book.Genre.FICTION), "id", 3, book -> titles.add(book.getTitle())).join();        Assert.assertThat(count, is(equalTo(4L)));        Assert.assertThat(titles.size(), is(equalTo(4)));        Assert.assertThat(titles.contains(ITSuiteTest.complot), is(equalTo(true)));    }    @Test    public void countBatchByGenre() {        List<Long> counts = this.bookRepository.countBatch(Arrays.asList(                new Criteria("genre").eq(Book.Genre.THRILLER),                new Criteria("genre").eq(Book.Genre.FICTION),                new Criteria("price").greaterThan(10).and("price").lessThan(5)));        Assert.assertThat(counts, is(equalTo(Arrays.asList(3L, 1L, 0L))));    }    @Test    public void findAllBatchByGenre() {        List<List<Book>> results = this.bookRepository.findAllBatch(Arrays.asList(                new Criteria("genre").eq(Book.Genre.THRILLER),                new Criteria("genre").in(Book.Genre.THRILLER, Book.Genre.FICTION)), Sort.by(Sort.Direction.ASC, "title"));        Assert.assertThat(results.get(0).size(), is(equalTo(3)));        Assert.assertThat(results.get(0).get(0).getTitle(), is(equalTo(ITSuiteTest.complot)));        Assert.assertThat(results.get(1).size(), is(equalTo(4)));        Assert.assertThat(results.get(1).get(3).getTitle(), is(equalTo(ITSuiteTest.sansDefense)));    }    @Test    @Transactional(readOnly = true)    public void findAllByEmptyInWithoutOptimization() {        SimpleJpaCriteriaRepository<Book, Long> repository = new SimpleJpaCriteriaRepository<>(Book.class, this.entityManager);        repository.setSettings(new JpaCriteriaSettings().criteriaOptimization(false));        Assert.assertThat(repository.count(new Criteria("title").in(Collections.emptyList())), is(equalTo(0L)));        Assert.assertThat(repository.count(new Criteria("title").notIn(Collections.emptyList())), is(equalTo(repository.count())));    }    @Test    public void findAllByEmptyNotInOnAssociationWithoutOptimization() {        SimpleJpaCriteriaRepository<Book, Long> repository = new SimpleJpaCriteriaRepository<>(Book.class, this.entityManager);        repository.setSettings(new JpaCriteriaSettings().criteriaOptimization(false));        // the books of the genre have no author: the constant predicate must not join the author        List<Book> result = repository.findAll(new Criteria("author.lastName").notIn(Collections.emptyList()).and("genre").eq(Book.Genre.FANTASTIQUE));        Assert.assertThat(result.size(), is(equalTo(2)));        Assert.assertThat(repository.count(new Criteria("author.lastName").notIn(Collections.emptyList())), is(equalTo(repository.count())));    }    @Test    public void countByWholeDecimalOnIntegralProperty() {        Assert.assertThat(this.bookRepository.count(new Criteria("id").lessThan(1000.0)), is(equalTo(this.bookRepository.count())));    }    @Test(expected = InvalidDataAccessApiUsageException.class)    public void countByFractionalValueOnIntegralProperty() {        this.bookRepository.count(new Criteria("id").lessThan(1.5));    }    /**     * @param queries the queries created by the entity manager     * @return the entity manager of the test, recording the queries it creates     */    private EntityManager recordingEntityManager(List<org.hibernate.query.Query<?>> queries) {        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(), new Class<?>[]{EntityManager.class}, (proxy, method, args) -> {            try {                Object result = method.invoke(this.entityManager, args);                if (result instanceof TypedQuery) {                    queries.add(((TypedQuery<?>) result).unwrap(org.hibernate.query.Query.class));                }                return result;            } catch (InvocationTargetException e) {                throw e.getCause();            }        });    }    /**     * @param year     * @param month     * @param day     * @return     */    private LocalDate buildPublication(int year, int month, int day) {        return LocalDate.of(year, month, day);    }    /**     * @return     */    private Pageable createPageable(int page, int size) {        return PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "title"));    }}
\ No newline at end of file
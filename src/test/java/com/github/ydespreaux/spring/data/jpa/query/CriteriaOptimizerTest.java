@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.query;
+
+import com.github.ydespreaux.spring.data.jpa.configuration.entities.Book.Genre;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@RunWith(SpringRunner.class)
+public class CriteriaOptimizerTest {
+
+    @Test
+    public void flattenNestedDisjunctions() {
+        Criteria criteria = new Criteria("field_1").eq("value_1")
+                .or(new Criteria("field_2").eq("value_2"))
+                .or(new Criteria("field_3").eq("value_3"));
+        CriteriaOptimizer.Result result = CriteriaOptimizer.optimize(criteria);
+        assertThat(result.isUnsatisfiable(), is(false));
+        assertThat(result.getCriteria().getCriteriaChain().isEmpty(), is(true));
+        assertThat(result.getCriteria().getQueryCriteriaEntries().size(), is(equalTo(3)));
+        assertThat(result.getCriteria().isOr(), is(true));
+    }
+
+    @Test
+    public void removeDuplicatedEntries() {
+        Criteria criteria = new Criteria("field").eq("value").and("field").eq("value").and("other").contains("text");
+        CriteriaOptimizer.Result result = CriteriaOptimizer.optimize(criteria);
+        assertThat(result.getCriteria().toString(), is(equalTo("(field EQUALS value) AND (other CONTAINS text)")));
+    }
+
+    @Test
+    public void mergeEqualitiesIntoIn() {
+        Criteria criteria = new Criteria("field").eq(1).or("field").eq(2).or("field").in(2, 3);
+        CriteriaOptimizer.Result result = CriteriaOptimizer.optimize(criteria);
+        assertThat(result.getCriteria().toString(), is(equalTo("(field IN [1, 2, 3])")));
+    }
+
+    @Test
+    public void intersectRanges() {
+        Criteria criteria = new Criteria("price").greaterThan(5).and("price").greaterThanEqual(7).and("price").lessThan(10.5);
+        CriteriaOptimizer.Result result = CriteriaOptimizer.optimize(criteria);
+        assertThat(result.getCriteria().toString(), is(equalTo("(price GREATER_EQUAL 7) AND (price LESS 10.5)")));
+    }
+
+    @Test
+    public void rangeReducedToEquality() {
+        Criteria criteria = new Criteria("price").between(5, 10).and("price").lessThanEqual(5L);
+        CriteriaOptimizer.Result result = CriteriaOptimizer.optimize(criteria);
+        assertThat(result.getCriteria().toString(), is(equalTo("(price EQUALS 5)")));
+    }
+
+    @Test
+    public void inFilteredByRange() {
+        Criteria criteria = new Criteria("price").in(1, 5, 8, 12).and("price").between(4, 10);
+        CriteriaOptimizer.Result result = CriteriaOptimizer.optimize(criteria);
+        assertThat(result.getCriteria().toString(), is(equalTo("(price IN [5, 8])")));
+    }
+
+    @Test
+    public void contradictoryRanges() {
+        CriteriaOptimizer.Result result = CriteriaOptimizer.optimize(new Criteria("price").lessThan(5).and("price").greaterThan(10));
+        assertThat(result.isUnsatisfiable(), is(true));
+        assertThat(result.getCriteria(), is(nullValue()));
+    }
+
+    @Test
+    public void contradictoryEqualities() {
+        assertThat(CriteriaOptimizer.optimize(new Criteria("field").eq(1).and("field").eq(2L)).isUnsatisfiable(), is(true));
+        assertThat(CriteriaOptimizer.optimize(new Criteria("field").isNull().and("field").eq("a")).isUnsatisfiable(), is(true));
+        assertThat(CriteriaOptimizer.optimize(new Criteria("field").in(1, 2).and("field").eq(3)).isUnsatisfiable(), is(true));
+    }
+
+    @Test
+    public void unsatisfiableOperandOfDisjunction() {
+        Criteria criteria = new Criteria("field").eq("a")
+                .or(new Criteria("price").lessThan(5).and("price").greaterThan(10));
+        CriteriaOptimizer.Result result = CriteriaOptimizer.optimize(criteria);
+        assertThat(result.isUnsatisfiable(), is(false));
+        assertThat(result.getCriteria().toString(), is(equalTo("(field EQUALS a)")));
+    }
+
+    @Test
+    public void incomparableValuesAreKept() {
+        Criteria criteria = new Criteria("field").greaterThan("a").and("field").lessThan(10);
+        CriteriaOptimizer.Result result = CriteriaOptimizer.optimize(criteria);
+        assertThat(result.getCriteria().getQueryCriteriaEntries().size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void stringsAreNotIntersected() {
+        // the collation of the column may be case insensitive
+        CriteriaOptimizer.Result equalities = CriteriaOptimizer.optimize(new Criteria("title").eq("complot").and("title").eq("Complot"));
+        assertThat(equalities.isUnsatisfiable(), is(false));
+        assertThat(equalities.getCriteria().getQueryCriteriaEntries().size(), is(equalTo(2)));
+        CriteriaOptimizer.Result range = CriteriaOptimizer.optimize(new Criteria("title").greaterThan("a").and("title").lessThan("B"));
+        assertThat(range.isUnsatisfiable(), is(false));
+        assertThat(range.getCriteria().getQueryCriteriaEntries().size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void enumerationsAreNotIntersected() {
+        // an enumeration stored as a string is not compared by its ordinal
+        CriteriaOptimizer.Result result = CriteriaOptimizer.optimize(new Criteria("genre").greaterThanEqual(Genre.FANTASTIQUE)
+                .and("genre").lessThanEqual(Genre.THRILLER));
+        assertThat(result.isUnsatisfiable(), is(false));
+        assertThat(result.getCriteria().getQueryCriteriaEntries().size(), is(equalTo(2)));
+        assertThat(CriteriaOptimizer.optimize(new Criteria("genre").isNull().and("genre").eq(Genre.THRILLER)).isUnsatisfiable(), is(true));
+    }
+
+    @Test
+    public void intersectDates() {
+        CriteriaOptimizer.Result result = CriteriaOptimizer.optimize(new Criteria("publication").greaterThan(LocalDate.of(2018, 1, 1))
+                .and("publication").lessThan(LocalDate.of(2017, 1, 1)));
+        assertThat(result.isUnsatisfiable(), is(true));
+    }
+
+    @Test
+    public void emptyCriteria() {
+        assertThat(CriteriaOptimizer.optimize(null).getCriteria(), is(nullValue()));
+        assertThat(CriteriaOptimizer.optimize(new Criteria()).getCriteria(), is(nullValue()));
+    }
+
+    @Test
+    public void emptyChainedCriteria() {
+        CriteriaOptimizer.Result or = CriteriaOptimizer.optimize(new Criteria().or(new Criteria("genre").eq(Genre.THRILLER)));
+        assertThat(or.isUnsatisfiable(), is(false));
+        assertThat(or.getCriteria().toString(), is(equalTo("(genre EQUALS THRILLER)")));
+
+        CriteriaOptimizer.Result and = CriteriaOptimizer.optimize(new Criteria().and(new Criteria("genre").eq(Genre.THRILLER)));
+        assertThat(and.getCriteria().toString(), is(equalTo("(genre EQUALS THRILLER)")));
+
+        Criteria criteria = new Criteria();
+        for (Genre genre : new Genre[]{Genre.THRILLER, Genre.FICTION}) {
+            criteria = criteria.or(new Criteria("genre").eq(genre));
+        }
+        assertThat(CriteriaOptimizer.optimize(criteria).getCriteria().toString(), is(equalTo("(genre IN [THRILLER, FICTION])")));
+        assertThat(CriteriaOptimizer.optimize(new Criteria().and(new Criteria())).getCriteria(), is(nullValue()));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+
+package com.github.ydespreaux.spring.data.jpa.query;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@RunWith(SpringRunner.class)
+public class CriteriaShapeTest {
+
+    @Test
+    public void sameShapeWithDifferentValues() {
+        CriteriaShape shape1 = CriteriaShape.of(new Criteria("field_1").eq("value_1").and("field_2").greaterThan(10));
+        CriteriaShape shape2 = CriteriaShape.of(new Criteria("field_1").eq("value_2").and("field_2").greaterThan(20));
+        assertThat(shape1, is(equalTo(shape2)));
+        assertThat(shape1.hashCode(), is(equalTo(shape2.hashCode())));
+        assertThat(shape1.getKey(), is(equalTo("AND(field_1 EQUALS,field_2 GREATER,)")));
+    }
+
+    @Test
+    public void differentOperators() {
+        CriteriaShape shape1 = CriteriaShape.of(new Criteria("field").eq("value"));
+        CriteriaShape shape2 = CriteriaShape.of(new Criteria("field").notEq("value"));
+        assertThat(shape1, is(not(equalTo(shape2))));
+    }
+
+    @Test
+    public void differentConjunctions() {
+        CriteriaShape shape1 = CriteriaShape.of(new Criteria("field_1").eq("value_1").and("field_2").eq("value_2"));
+        CriteriaShape shape2 = CriteriaShape.of(new Criteria("field_1").eq("value_1").or("field_2").eq("value_2"));
+        assertThat(shape1, is(not(equalTo(shape2))));
+    }
+
+    @Test
+    public void betweenWithOpenBounds() {
+        CriteriaShape closed = CriteriaShape.of(new Criteria("field").between(1, 2));
+        CriteriaShape lowerOpen = CriteriaShape.of(new Criteria("field").between(null, 2));
+        CriteriaShape upperOpen = CriteriaShape.of(new Criteria("field").between(1, null));
+        assertThat(closed, is(not(equalTo(lowerOpen))));
+        assertThat(closed, is(not(equalTo(upperOpen))));
+        assertThat(lowerOpen, is(not(equalTo(upperOpen))));
+    }
+
+    @Test
+    public void inWithSizeBucket() {
+        CriteriaShape shape3 = CriteriaShape.of(new Criteria("field").in(1, 2, 3));
+        CriteriaShape shape4 = CriteriaShape.of(new Criteria("field").in(Arrays.asList(1, 2, 3, 4)));
+        CriteriaShape shape5 = CriteriaShape.of(new Criteria("field").in(1, 2, 3, 4, 5));
+        assertThat(shape3, is(equalTo(shape4)));
+        assertThat(shape4, is(not(equalTo(shape5))));
+        assertThat(shape5.getKey(), is(equalTo("AND(field IN[8],)")));
+    }
+
+    @Test
+    public void sizeBucket() {
+        assertThat(CriteriaShape.sizeBucket(0), is(equalTo(0)));
+        assertThat(CriteriaShape.sizeBucket(1), is(equalTo(1)));
+        assertThat(CriteriaShape.sizeBucket(2), is(equalTo(2)));
+        assertThat(CriteriaShape.sizeBucket(3), is(equalTo(4)));
+        assertThat(CriteriaShape.sizeBucket(1000), is(equalTo(1024)));
+        assertThat(CriteriaShape.sizeBucket(1024), is(equalTo(1024)));
+    }
+
+    @Test
+    public void nullCriteria() {
+        assertThat(CriteriaShape.of(null), is(equalTo(CriteriaShape.of(null))));
+        assertThat(CriteriaShape.of(null).getKey(), is(equalTo("")));
+    }
+}
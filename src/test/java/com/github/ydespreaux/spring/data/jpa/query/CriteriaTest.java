@@ -24,6 +24,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -395,4 +396,26 @@ public class CriteriaTest {
 
     }
 
+    @Test
+    public void fluentOperationsReturnNewCriteria() {
+        Criteria base = new Criteria("field_1").eq("value_1");
+        Criteria criteria = base.and("field_2").eq("value_2");
+        assertThat(base.toString(), is(equalTo("(field_1 EQUALS value_1)")));
+        assertThat(criteria.toString(), is(equalTo("(field_1 EQUALS value_1) AND (field_2 EQUALS value_2)")));
+        assertThat(base.and(new Criteria("field_3").eq("value_3")), is(not(sameInstance(base))));
+        assertThat(base.getCriteriaChain().isEmpty(), is(true));
+    }
+
+    @Test
+    public void equalsAndHashCode() {
+        List<String> values = new ArrayList<>(Arrays.asList("value1", "value2"));
+        Criteria criteria = new Criteria("field_1").in(values).and("field_2").between(1, 10);
+        Criteria other = new Criteria("field_1").in("value1", "value2").and("field_2").between(1, 10);
+        assertThat(criteria, is(equalTo(other)));
+        assertThat(criteria.hashCode(), is(equalTo(other.hashCode())));
+        assertThat(criteria, is(not(equalTo(new Criteria("field_1").in(values).or("field_2").between(1, 10)))));
+        values.add("value3");
+        assertThat(criteria, is(equalTo(other)));
+    }
+
 }
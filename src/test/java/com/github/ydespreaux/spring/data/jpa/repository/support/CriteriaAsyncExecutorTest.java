@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@RunWith(SpringRunner.class)
+public class CriteriaAsyncExecutorTest {
+
+    @Test
+    public void rejectWhenQueueIsFull() throws Exception {
+        CriteriaAsyncExecutor executor = new CriteriaAsyncExecutor(1, 1);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+                started.countDown();
+                await(release);
+            }, executor);
+            started.await();
+            CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> {
+            }, executor);
+            assertThat(executor.getActiveCount(), is(equalTo(1)));
+            assertThat(executor.getQueueSize(), is(equalTo(1)));
+            try {
+                executor.execute(() -> {
+                });
+                throw new AssertionError("Expected a RejectedExecutionException");
+            } catch (RejectedExecutionException e) {
+                assertThat(executor.getRejectedCount(), is(equalTo(1L)));
+            }
+            release.countDown();
+            running.get();
+            queued.get();
+            assertThat(executor.getQueueSize(), is(equalTo(0)));
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import com.github.ydespreaux.spring.data.jpa.query.Criteria;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@RunWith(SpringRunner.class)
+public class CriteriaPartitionsTest {
+
+    @Test
+    public void splitIdentifiers() {
+        List<Criteria> partitions = CriteriaPartitions.split(null, "id", 1L, 10L, 3);
+        assertThat(partitions.size(), is(equalTo(3)));
+        assertThat(partitions.get(0), is(equalTo(new Criteria("id").greaterThanEqual(1L).lessThan(4L))));
+        assertThat(partitions.get(1), is(equalTo(new Criteria("id").greaterThanEqual(4L).lessThan(7L))));
+        assertThat(partitions.get(2), is(equalTo(new Criteria("id").greaterThanEqual(7L).lessThanEqual(10L))));
+    }
+
+    @Test
+    public void splitNarrowRange() {
+        List<Criteria> partitions = CriteriaPartitions.split(null, "id", 5, 6, 4);
+        assertThat(partitions.size(), is(equalTo(2)));
+        assertThat(partitions.get(0), is(equalTo(new Criteria("id").greaterThanEqual(5).lessThan(6))));
+        assertThat(partitions.get(1), is(equalTo(new Criteria("id").greaterThanEqual(6).lessThanEqual(6))));
+    }
+
+    @Test
+    public void splitDates() {
+        Criteria criteria = new Criteria("genre").eq("THRILLER");
+        List<Criteria> partitions = CriteriaPartitions.split(criteria, "publication", LocalDate.of(2018, 1, 1), LocalDate.of(2018, 1, 4), 2);
+        assertThat(partitions.size(), is(equalTo(2)));
+        assertThat(partitions.get(0), is(equalTo(new Criteria("publication").greaterThanEqual(LocalDate.of(2018, 1, 1)).lessThan(LocalDate.of(2018, 1, 3)).and(criteria))));
+        assertThat(partitions.get(1), is(equalTo(new Criteria("publication").greaterThanEqual(LocalDate.of(2018, 1, 3)).lessThanEqual(LocalDate.of(2018, 1, 4)).and(criteria))));
+    }
+
+    @Test(expected = InvalidDataAccessApiUsageException.class)
+    public void splitUnsupportedType() {
+        CriteriaPartitions.split(null, "price", 1.0, 2.0, 2);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import com.github.ydespreaux.spring.data.jpa.repository.support.CriteriaQueryCache.CompiledQuery;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@RunWith(SpringRunner.class)
+public class CriteriaQueryCacheTest {
+
+    @Test
+    public void hitAndMiss() {
+        CriteriaQueryCache cache = new CriteriaQueryCache(2);
+        CompiledQuery<Object> query = new CompiledQuery<>(null, null);
+        assertThat(cache.get("key", () -> query), is(sameInstance(query)));
+        assertThat(cache.get("key", () -> new CompiledQuery<>(null, null)), is(sameInstance(query)));
+        assertThat(cache.getMissCount(), is(equalTo(1L)));
+        assertThat(cache.getHitCount(), is(equalTo(1L)));
+        assertThat(cache.getHitRatio(), is(equalTo(0.5d)));
+        assertThat(cache.size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        CriteriaQueryCache cache = new CriteriaQueryCache(2);
+        CompiledQuery<Object> query1 = new CompiledQuery<>(null, null);
+        cache.get("key1", () -> query1);
+        cache.get("key2", () -> new CompiledQuery<>(null, null));
+        cache.get("key1", () -> new CompiledQuery<>(null, null));
+        cache.get("key3", () -> new CompiledQuery<>(null, null));
+        assertThat(cache.size(), is(equalTo(2)));
+        assertThat(cache.getEvictionCount(), is(equalTo(1L)));
+        assertThat(cache.get("key1", () -> new CompiledQuery<>(null, null)), is(sameInstance(query1)));
+        assertThat(cache.getMissCount(), is(equalTo(3L)));
+    }
+
+    @Test
+    public void disabled() {
+        CriteriaQueryCache cache = new CriteriaQueryCache(0);
+        cache.get("key", () -> new CompiledQuery<>(null, null));
+        cache.get("key", () -> new CompiledQuery<>(null, null));
+        assertThat(cache.size(), is(equalTo(0)));
+        assertThat(cache.getMissCount(), is(equalTo(2L)));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import com.github.ydespreaux.spring.data.jpa.query.Criteria;
+import com.github.ydespreaux.spring.data.jpa.query.CriteriaOptimizer;
+import com.github.ydespreaux.spring.data.jpa.query.CriteriaShape;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@RunWith(SpringRunner.class)
+public class CriteriaQueryRecorderTest {
+
+    private List<CriteriaQueryEvent> events;
+    private JpaCriteriaSettings settings;
+
+    @Before
+    public void setUp() {
+        this.events = new ArrayList<>();
+        this.settings = new JpaCriteriaSettings().metrics(this.events::add);
+    }
+
+    @Test
+    public void shapeOfExecutedCriteria() {
+        Criteria criteria = new Criteria("price").greaterThan(1).and(new Criteria("price").greaterThan(3));
+        Criteria optimized = CriteriaOptimizer.optimize(criteria).getCriteria();
+
+        CriteriaQueryRecorder recorder = CriteriaQueryRecorder.start(this.settings, "BookRepository", "findSlice", criteria);
+        recorder.executed(optimized);
+        recorder.row();
+        recorder.row();
+        recorder.stop();
+
+        assertThat(this.events, hasSize(1));
+        CriteriaQueryEvent event = this.events.get(0);
+        assertThat(event.getMethod(), is(equalTo("findSlice")));
+        assertThat(event.getShape(), is(equalTo(CriteriaShape.of(optimized).getId())));
+        assertThat(event.getShape(), is(not(equalTo(CriteriaShape.of(criteria).getId()))));
+        assertThat(event.getCriteria(), is(sameInstance(optimized)));
+        assertThat(event.getRows(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void shapeOfBatch() {
+        List<Criteria> batch = Arrays.asList(new Criteria("title").eq("a"), new Criteria("price").lessThan(5));
+
+        CriteriaQueryRecorder recorder = CriteriaQueryRecorder.start(this.settings, "BookRepository", "countBatch", null);
+        recorder.executed(batch);
+        recorder.stop();
+
+        assertThat(this.events.get(0).getShape(), is(equalTo(CriteriaShape.ofBatch(batch).getId())));
+        assertThat(this.events.get(0).getCriteria(), is(nullValue()));
+    }
+}
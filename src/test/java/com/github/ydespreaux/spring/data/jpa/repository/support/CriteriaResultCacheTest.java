@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@RunWith(SpringRunner.class)
+public class CriteriaResultCacheTest {
+
+    @Test
+    public void hitAndMiss() {
+        CriteriaResultCache cache = new CriteriaResultCache(2, Duration.ofMinutes(1));
+        assertThat(cache.get("key", () -> "result"), is(equalTo("result")));
+        assertThat(cache.get("key", () -> "other"), is(equalTo("result")));
+        assertThat(cache.getMissCount(), is(equalTo(1L)));
+        assertThat(cache.getHitCount(), is(equalTo(1L)));
+        assertThat(cache.getHitRatio(), is(equalTo(0.5d)));
+        assertThat(cache.size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void expireAfterTimeToLive() {
+        AtomicLong ticker = new AtomicLong();
+        CriteriaResultCache cache = new CriteriaResultCache(2, Duration.ofNanos(10), ticker::get);
+        cache.get("key", () -> "result");
+        ticker.set(9);
+        assertThat(cache.get("key", () -> "other"), is(equalTo("result")));
+        ticker.set(10);
+        assertThat(cache.get("key", () -> "other"), is(equalTo("other")));
+        assertThat(cache.getEvictionCount(), is(equalTo(1L)));
+        assertThat(cache.getMissCount(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        CriteriaResultCache cache = new CriteriaResultCache(2, Duration.ofMinutes(1));
+        cache.get("key1", () -> "result1");
+        cache.get("key2", () -> "result2");
+        cache.get("key1", () -> "other");
+        cache.get("key3", () -> "result3");
+        assertThat(cache.size(), is(equalTo(2)));
+        assertThat(cache.getEvictionCount(), is(equalTo(1L)));
+        assertThat(cache.get("key1", () -> "other"), is(equalTo("result1")));
+    }
+
+    @Test
+    public void invalidate() {
+        CriteriaResultCache cache = new CriteriaResultCache(2, Duration.ofMinutes(1));
+        cache.get("key", () -> "result");
+        cache.invalidate();
+        assertThat(cache.size(), is(equalTo(0)));
+        assertThat(cache.getInvalidationCount(), is(equalTo(1L)));
+        // a result loaded during an invalidation is not cached
+        assertThat(cache.get("key", () -> {
+            cache.invalidate();
+            return "stale";
+        }), is(equalTo("stale")));
+        assertThat(cache.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void disabled() {
+        CriteriaResultCache cache = new CriteriaResultCache(0, Duration.ofMinutes(1));
+        cache.get("key", () -> "result");
+        cache.get("key", () -> "result");
+        assertThat(cache.isEnabled(), is(false));
+        assertThat(cache.size(), is(equalTo(0)));
+        assertThat(cache.getMissCount(), is(equalTo(2L)));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Duration;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@RunWith(SpringRunner.class)
+public class InMemoryCriteriaMetricsTest {
+
+    private InMemoryCriteriaMetrics metrics;
+
+    @Before
+    public void setUp() {
+        this.metrics = new InMemoryCriteriaMetrics();
+    }
+
+    @Test
+    public void statisticsByShape() {
+        this.metrics.record(event("findAll", "s1", 10, 20, 0, 5, null));
+        this.metrics.record(event("findAll", "s1", 5, 40, 0, 50, null));
+        this.metrics.record(event("findAll", "s2", 1, 1, 0, 0, new IllegalArgumentException()));
+        this.metrics.record(event("count", "s1", 1, 1, 0, 1, null));
+
+        InMemoryCriteriaMetrics.Statistics statistics = this.metrics.getStatistics("BookRepository", "findAll", "s1");
+        assertThat(statistics.getCount(), is(equalTo(2L)));
+        assertThat(statistics.getFailureCount(), is(equalTo(0L)));
+        assertThat(statistics.getTranslateTime(), is(equalTo(Duration.ofMillis(15))));
+        assertThat(statistics.getExecuteTime(), is(equalTo(Duration.ofMillis(60))));
+        assertThat(statistics.getMaxTime(), is(equalTo(Duration.ofMillis(45))));
+        assertThat(statistics.getRows(), is(equalTo(55L)));
+        assertThat(statistics.getMaxRows(), is(equalTo(50L)));
+        assertThat(statistics.getRowsDistribution(), is(equalTo(new long[]{0, 1, 1, 0, 0, 0, 0, 0})));
+    }
+
+    @Test
+    public void statisticsByMethod() {
+        this.metrics.record(event("findPage", "s1", 1, 2, 3, 5, null));
+        this.metrics.record(event("findPage", "s2", 1, 2, 7, 0, new IllegalArgumentException()));
+
+        InMemoryCriteriaMetrics.Statistics statistics = this.metrics.getStatistics("BookRepository", "findPage");
+        assertThat(statistics.getCount(), is(equalTo(2L)));
+        assertThat(statistics.getFailureCount(), is(equalTo(1L)));
+        assertThat(statistics.getCountTime(), is(equalTo(Duration.ofMillis(10))));
+        assertThat(statistics.getTotalTime(), is(equalTo(Duration.ofMillis(16))));
+        assertThat(statistics.getRowsDistribution(), is(equalTo(new long[]{1, 1, 0, 0, 0, 0, 0, 0})));
+        assertThat(this.metrics.getStatistics("AuthorRepository", "findPage").getCount(), is(equalTo(0L)));
+
+        this.metrics.clear();
+        assertThat(this.metrics.getStatistics("BookRepository", "findPage").getCount(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void rowsBucket() {
+        assertThat(InMemoryCriteriaMetrics.Statistics.rowsBucket(0), is(equalTo(0)));
+        assertThat(InMemoryCriteriaMetrics.Statistics.rowsBucket(1), is(equalTo(1)));
+        assertThat(InMemoryCriteriaMetrics.Statistics.rowsBucket(9), is(equalTo(1)));
+        assertThat(InMemoryCriteriaMetrics.Statistics.rowsBucket(10), is(equalTo(2)));
+        assertThat(InMemoryCriteriaMetrics.Statistics.rowsBucket(999_999), is(equalTo(6)));
+        assertThat(InMemoryCriteriaMetrics.Statistics.rowsBucket(Long.MAX_VALUE), is(equalTo(7)));
+    }
+
+    private static CriteriaQueryEvent event(String method, String shape, long translate, long execute, long count, long rows, Throwable failure) {
+        return new CriteriaQueryEvent("BookRepository", method, shape, null,
+                Duration.ofMillis(translate), Duration.ofMillis(execute), Duration.ofMillis(count), rows, failure);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2018 Yoann Despréaux
+ *
+ * This program eq free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program eq distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; see the file COPYING . If not, write to the
+ * Free Software Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ *
+ * Please send bugreports with examples or suggestions to yoann.despreaux@believeit.fr
+ */
+
+
+package com.github.ydespreaux.spring.data.jpa.repository.support;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Yoann Despréaux
+ * @since 1.2.1
+ */
+@RunWith(SpringRunner.class)
+public class KeysetTokenTest {
+
+    @Test
+    public void encodeAndDecode() {
+        List<String> properties = Arrays.asList("title", "price", "id");
+        String token = KeysetToken.encode(properties, Arrays.asList("Le cri & co=1", 8.2d, 42L));
+        List<String> values = KeysetToken.decode(token, properties);
+        assertThat(values, is(equalTo(Arrays.asList("Le cri & co=1", "8.2", "42"))));
+        assertThat(KeysetToken.toValue(values.get(1), Double.class), is(equalTo(8.2d)));
+        assertThat(KeysetToken.toValue(values.get(2), Long.class), is(equalTo(42L)));
+    }
+
+    @Test
+    public void toValue() {
+        assertThat(KeysetToken.toValue("2018-01-11", LocalDate.class), is(equalTo(LocalDate.of(2018, 1, 11))));
+        assertThat(KeysetToken.toValue("1515628800000", Date.class), is(equalTo(new Date(1515628800000L))));
+        assertThat(KeysetToken.toValue("DAYS", java.util.concurrent.TimeUnit.class), is(equalTo(java.util.concurrent.TimeUnit.DAYS)));
+    }
+
+    @Test
+    public void encodeAndDecodeDates() {
+        Timestamp timestamp = Timestamp.valueOf("2018-01-11 10:20:30.123456789");
+        java.sql.Date date = java.sql.Date.valueOf("2018-01-11");
+        List<String> properties = Arrays.asList("updated", "publication", "created");
+        List<String> values = KeysetToken.decode(KeysetToken.encode(properties, Arrays.asList(timestamp, date, new Date(1515628800000L))), properties);
+        assertThat(values.get(2), is(equalTo("2018-01-11T00:00:00Z")));
+        assertThat(KeysetToken.toValue(values.get(0), Timestamp.class), is(equalTo(timestamp)));
+        assertThat(KeysetToken.toValue(values.get(0), Date.class), is(equalTo(timestamp)));
+        assertThat(KeysetToken.toValue(values.get(1), java.sql.Date.class), is(equalTo(date)));
+        assertThat(((Date) KeysetToken.toValue(values.get(2), Date.class)).getTime(), is(equalTo(1515628800000L)));
+    }
+
+    @Test(expected = InvalidDataAccessApiUsageException.class)
+    public void decodeWithAnotherSort() {
+        String token = KeysetToken.encode(Arrays.asList("title", "id"), Arrays.asList("Le cri", 1L));
+        KeysetToken.decode(token, Arrays.asList("price", "id"));
+    }
+
+    @Test(expected = InvalidDataAccessApiUsageException.class)
+    public void decodeInvalidToken() {
+        KeysetToken.decode("not a token!", Arrays.asList("price", "id"));
+    }
+
+    @Test(expected = InvalidDataAccessApiUsageException.class)
+    public void encodeNullValue() {
+        KeysetToken.encode(Arrays.asList("title", "id"), Arrays.asList(null, 1L));
+    }
+}